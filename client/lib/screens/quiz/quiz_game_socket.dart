@@ -99,7 +99,7 @@ class QuizGameSocketState extends ConsumerState<QuizGameSocket>
   void _connectToSocket() {
     stompClient = StompClient(
       config: StompConfig(
-        url: '${ApiHandler.url}/socket',
+        url: '${router.getValues!['socketUrl'] ?? ApiHandler.url}/socket',
         onConnect: _onConnect,
         beforeConnect: () async {
           print('Connecting...');
@@ -112,6 +112,7 @@ class QuizGameSocketState extends ConsumerState<QuizGameSocket>
           developer.log('Disconnected');
         },
         webSocketConnectHeaders: {'Origin': ApiHandler.url},
+        stompConnectHeaders: {'Authorization': 'Bearer ${user.token}'},
         useSockJS: true,
       ),
     );
@@ -24,8 +24,9 @@ class QuizLobbyState extends ConsumerState<QuizLobby> {
   late RouterNotifier router;
   late UserNotifier user;
 
-  // WebSocket client
+  // WebSocket client, and the server node that owns the quiz session
   StompClient? stompClient;
+  String socketUrl = ApiHandler.url;
 
   // Lobby-specific properties
   String quizToken = '';
@@ -74,7 +75,7 @@ class QuizLobbyState extends ConsumerState<QuizLobby> {
     await _initUsername();
     stompClient = StompClient(
       config: StompConfig(
-        url: '${ApiHandler.url}/socket',
+        url: '$socketUrl/socket',
         onConnect: _onConnect,
         beforeConnect: () async {
           print('Connecting...');
@@ -85,6 +86,7 @@ class QuizLobbyState extends ConsumerState<QuizLobby> {
             ErrorHandler.showOverlayError(context, 'STOMP Error: $error'),
         onDisconnect: (frame) => _leaveQuiz,
         webSocketConnectHeaders: {'Origin': ApiHandler.url},
+        stompConnectHeaders: {'Authorization': 'Bearer ${user.token!}'},
         useSockJS: true,
       ),
     );
@@ -139,7 +141,10 @@ class QuizLobbyState extends ConsumerState<QuizLobby> {
       callback: (StompFrame frame) {
         if (frame.body != null) {
           var result = json.decode(frame.body!);
-          if (result['message'] == "join" || result['message'] == "update") {
+          if (result['message'].toString().startsWith("redirect: ")) {
+            _redirect(result['message'].toString().substring(10));
+          } else if (result['message'] == "join" ||
+              result['message'] == "update") {
             var mapPlayers = List<Map<String, dynamic>>.from(result['players']);
             if (mounted) {
               setState(() {
@@ -162,6 +167,7 @@ class QuizLobbyState extends ConsumerState<QuizLobby> {
             result['thumbnail'] =
                 '${ApiHandler.url}/api/quiz/thumbnail/$quizId';
             result["username"] = username;
+            result["socketUrl"] = socketUrl;
             QuizMessageHandler.handleLobbyMessages(
                 context, router, result, username, stompClient!);
           }
@@ -173,6 +179,18 @@ class QuizLobbyState extends ConsumerState<QuizLobby> {
     );
   }
 
+  /// Reconnects to the server node that owns the quiz session and joins it there.
+  void _redirect(String url) {
+    stompClient?.deactivate();
+    if (url.isEmpty || url == socketUrl) {
+      ErrorHandler.showOverlayError(context, 'Quiz not found');
+      router.setPath(context, 'join');
+      return;
+    }
+    socketUrl = url;
+    _connect();
+  }
+
   /// Sends a message to create a new quiz.
   Future<void> _createQuiz() async {
     stompClient!.send(
@@ -0,0 +1,125 @@
+package no.itszipzon.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import no.itszipzon.DtoParser;
+import no.itszipzon.socket.quiz.QuizAnswerSocket;
+import no.itszipzon.socket.quiz.QuizPlayer;
+import no.itszipzon.socket.quiz.QuizSession;
+import no.itszipzon.tables.Quiz;
+import no.itszipzon.tables.QuizOption;
+import no.itszipzon.tables.QuizQuestion;
+import no.itszipzon.tables.User;
+
+/**
+ * Realistic data for the benchmarks, shaped like what the server handles during a game.
+ */
+public final class BenchmarkFixtures {
+
+  public static final String SECRET = "TgOWBpL0EIisPUofDdBQ5CRZ0NGILSsS/pZPF5A37E0=";
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * Builds a user as it is loaded from the database.
+   *
+   * @param id The id of the user.
+   * @return The user.
+   */
+  public static User user(long id) {
+    User user = new User();
+    user.setId(id);
+    user.setUsername("player" + id);
+    user.setEmail("player" + id + "@example.com");
+    user.setRole("user");
+    user.setCreatedAt(LocalDateTime.of(2024, 11, 1, 12, 0));
+    user.setUpdatedAt(LocalDateTime.of(2024, 11, 20, 8, 30));
+    return user;
+  }
+
+  /**
+   * Builds a quiz entity with its questions and options.
+   *
+   * @param questions The amount of questions.
+   * @param options   The amount of options per question.
+   * @return The quiz.
+   */
+  public static Quiz quiz(int questions, int options) {
+    Quiz quiz = new Quiz();
+    quiz.setQuizId(1L);
+    quiz.setTitle("World capitals");
+    quiz.setDescription("How well do you know the capitals of the world?");
+    quiz.setThumbnail("/images/quiz/1.png");
+    quiz.setTimer(20);
+    quiz.setCreatedAt(LocalDateTime.of(2024, 11, 1, 12, 0));
+    quiz.setUpdatedAt(LocalDateTime.of(2024, 11, 1, 12, 0));
+    quiz.setUser(user(1));
+    List<QuizQuestion> quizQuestions = new ArrayList<>(questions);
+    long optionId = 1;
+    for (int i = 0; i < questions; i++) {
+      QuizQuestion question = new QuizQuestion();
+      question.setQuizQuestionId((long) i + 1);
+      question.setQuestion("What is the capital of country number " + (i + 1) + "?");
+      question.setQuiz(quiz);
+      List<QuizOption> quizOptions = new ArrayList<>(options);
+      for (int j = 0; j < options; j++) {
+        QuizOption option = new QuizOption();
+        option.setQuizOptionId(optionId++);
+        option.setOptionText("Capital city " + (j + 1));
+        option.setCorrect(j == 0);
+        option.setQuizQuestion(question);
+        quizOptions.add(option);
+      }
+      question.setQuizOptions(quizOptions);
+      quizQuestions.add(question);
+    }
+    quiz.setQuizQuestions(quizQuestions);
+    return quiz;
+  }
+
+  /**
+   * Builds a session in the middle of a game: every player has answered the questions so far,
+   * and the current question has just been closed.
+   *
+   * @param players   The amount of players.
+   * @param questions The amount of questions in the quiz.
+   * @param answered  The amount of questions answered so far.
+   * @return The session.
+   */
+  public static QuizSession quizSession(int players, int questions, int answered) {
+    Random random = new Random(42);
+    QuizSession quizSession = new QuizSession("player1", 1);
+    quizSession.setToken("K7Q2P");
+    quizSession.setQuiz(DtoParser.mapToQuizWithQuestionsDto(quiz(questions, 4)));
+    for (int i = 1; i <= players; i++) {
+      QuizPlayer player = new QuizPlayer("player" + i, (long) i);
+      for (int q = 0; q < answered; q++) {
+        long optionId = (long) q * 4 + 1 + random.nextInt(4);
+        QuizAnswerSocket answer = new QuizAnswerSocket("Capital city", optionId);
+        answer.setScore(500 + random.nextInt(500));
+        answer.setTime(random.nextInt(20_000));
+        player.getAnswers().add(answer);
+      }
+      quizSession.addPlayer(player);
+    }
+    quizSession.setStarted(true);
+    quizSession.setState("quiz");
+    quizSession.setMessage("showAnswer");
+    quizSession.setCurrentQuestionIndex(answered - 1);
+    quizSession.getScoreEngine().closeRound(answered - 1, quizSession.getPlayers());
+    return quizSession;
+  }
+
+  /**
+   * Builds an object mapper configured like the one Spring Boot provides.
+   *
+   * @return The object mapper.
+   */
+  public static ObjectMapper objectMapper() {
+    return new ObjectMapper().findAndRegisterModules();
+  }
+}
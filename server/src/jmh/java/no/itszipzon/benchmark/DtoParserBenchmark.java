@@ -0,0 +1,44 @@
+package no.itszipzon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.DtoParser;
+import no.itszipzon.dto.QuizWithQuestionsDto;
+import no.itszipzon.tables.Quiz;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mapping a loaded quiz into the DTO a session plays from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DtoParserBenchmark {
+
+  @Param({"10", "50"})
+  private int questions;
+
+  private Quiz quiz;
+
+  @Setup
+  public void setup() {
+    quiz = BenchmarkFixtures.quiz(questions, 4);
+  }
+
+  @Benchmark
+  public QuizWithQuestionsDto mapToQuizWithQuestionsDto() {
+    return DtoParser.mapToQuizWithQuestionsDto(quiz);
+  }
+}
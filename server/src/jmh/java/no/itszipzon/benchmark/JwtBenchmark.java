@@ -0,0 +1,58 @@
+package no.itszipzon.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.config.JwtUtil;
+import no.itszipzon.tables.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token handling, which runs on every authenticated request and STOMP connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtBenchmark {
+
+  private JwtUtil jwtUtil;
+  private User user;
+  private String token;
+
+  /**
+   * Sets up the JwtUtil the way Spring would.
+   *
+   * @throws Exception If the secret cannot be injected.
+   */
+  @Setup
+  public void setup() throws Exception {
+    jwtUtil = new JwtUtil();
+    Field secret = JwtUtil.class.getDeclaredField("secret");
+    secret.setAccessible(true);
+    secret.set(jwtUtil, BenchmarkFixtures.SECRET);
+    jwtUtil.init();
+    user = BenchmarkFixtures.user(42);
+    token = jwtUtil.generateToken(user, 24);
+  }
+
+  @Benchmark
+  public Object extractClaims() {
+    return jwtUtil.extractClaims(token);
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtUtil.generateToken(user, 24);
+  }
+}
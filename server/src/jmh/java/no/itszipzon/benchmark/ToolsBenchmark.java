@@ -0,0 +1,48 @@
+package no.itszipzon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.Tools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The helpers in Tools that run while games are created and results are saved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ToolsBenchmark {
+
+  @Param({"5"})
+  private int tokenLength;
+
+  private int score = 7340;
+  private int amountOfQuestions = 10;
+  private int correctAnswers = 8;
+
+  @Benchmark
+  public int calculateXp() {
+    return Tools.calculateXp(score, amountOfQuestions, correctAnswers, 0);
+  }
+
+  @Benchmark
+  public int calculateXpWithReduction() {
+    return Tools.calculateXp(score, amountOfQuestions, correctAnswers, 2);
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return Tools.generateToken(tokenLength);
+  }
+}
@@ -0,0 +1,85 @@
+package no.itszipzon.socket.quiz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.benchmark.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building and rendering the frames a game broadcasts, for a game in its last rounds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class QuizFrameBenchmark {
+
+  @Param({"50"})
+  private int players;
+
+  private QuizController quizController;
+  private QuizSession quizSession;
+  private ObjectMapper objectMapper;
+  private QuizBinaryFrames binaryFrames;
+  private Map<String, Object> legacyFrame;
+  private QuizGameEvent snapshot;
+
+  /**
+   * Builds a session where every player has answered 9 of 10 questions.
+   */
+  @Setup
+  public void setup() {
+    quizController = new QuizController();
+    quizSession = BenchmarkFixtures.quizSession(players, 10, 9);
+    objectMapper = BenchmarkFixtures.objectMapper();
+    binaryFrames = new QuizBinaryFrames(objectMapper);
+    legacyFrame = quizController.getQuizDetailsFromSessionQuestion(quizSession,
+        quizSession.getCurrentQuestionIndex());
+    snapshot = new QuizGameEvent(1, QuizGameEvent.Type.SNAPSHOT,
+        quizController.getSnapshot(quizSession));
+  }
+
+  @Benchmark
+  public Map<String, Object> buildLegacyFrame() {
+    return quizController.getQuizDetailsFromSessionQuestion(quizSession,
+        quizSession.getCurrentQuestionIndex());
+  }
+
+  @Benchmark
+  public Map<String, Object> buildSnapshot() {
+    return quizController.getSnapshot(quizSession);
+  }
+
+  @Benchmark
+  public byte[] serializeLegacyFrame() throws Exception {
+    return objectMapper.writeValueAsBytes(legacyFrame);
+  }
+
+  @Benchmark
+  public byte[] serializeSnapshot() throws Exception {
+    return objectMapper.writeValueAsBytes(snapshot);
+  }
+
+  @Benchmark
+  public byte[] serializeSnapshotBinary() throws Exception {
+    return binaryFrames.render(snapshot);
+  }
+
+  @Benchmark
+  public Object rankingTop10() {
+    return quizSession.getRanking().top(10);
+  }
+}
@@ -0,0 +1,115 @@
+package no.itszipzon.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.Main;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+/**
+ * Measures how many concurrent games a node can hold.
+ *
+ * <p>Starts the server with the loadtest profile on an embedded database, seeds the users and a
+ * quiz, and plays the configured amount of sessions over real SockJS/STOMP connections. Run it
+ * with {@code mvn -Ploadtest compile exec:java -Dloadtest.sessions=50 -Dloadtest.players=20}.
+ */
+public class LoadTest {
+
+  private LoadTest() {
+  }
+
+  /**
+   * Runs the load test and prints the report.
+   *
+   * @param args Passed on to the server.
+   * @throws Exception If the run could not be set up.
+   */
+  public static void main(String[] args) throws Exception {
+    LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(Main.class)
+        .profiles("loadtest")
+        .run(args);
+    int exitCode = 0;
+    try {
+      run(context, config);
+    } catch (Exception e) {
+      System.err.println("Load test failed: " + e.getMessage());
+      exitCode = 1;
+    } finally {
+      SpringApplication.exit(context);
+    }
+    System.exit(exitCode);
+  }
+
+  private static void run(ConfigurableApplicationContext context, LoadTestConfig config)
+      throws Exception {
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    String url = "http://localhost:" + port + "/socket";
+    LoadTestFixture fixture = LoadTestFixture.create(context, config);
+    LoadTestMetrics metrics = new LoadTestMetrics();
+
+    WebSocketStompClient stompClient = new WebSocketStompClient(
+        new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+    stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    stompClient.setInboundMessageSizeLimit(4 * 1024 * 1024);
+    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+        Runtime.getRuntime().availableProcessors());
+    scheduler.scheduleAtFixedRate(metrics::sampleHeap, 0, 250, TimeUnit.MILLISECONDS);
+
+    System.gc();
+    long heapBefore = metrics.getHeapUsed();
+    CountDownLatch done = new CountDownLatch(config.getSessions() * config.getPlayers());
+    List<LoadTestPlayer> players = new ArrayList<>();
+    long start = System.nanoTime();
+    try {
+      for (int s = 0; s < config.getSessions(); s++) {
+        List<LoadTestPlayer> group = new ArrayList<>();
+        List<CompletableFuture<?>> connections = new ArrayList<>();
+        for (int p = 0; p < config.getPlayers(); p++) {
+          LoadTestPlayer player = new LoadTestPlayer(
+              fixture.getUsers().get(s * config.getPlayers() + p), config, metrics, scheduler,
+              done);
+          group.add(player);
+          connections.add(player.connect(stompClient, url));
+        }
+        players.addAll(group);
+        CompletableFuture.allOf(connections.toArray(new CompletableFuture<?>[0]))
+            .get(60, TimeUnit.SECONDS);
+
+        LoadTestPlayer leader = group.get(0);
+        String token = leader.create(fixture.getQuizId());
+        leader.follow(token);
+        CountDownLatch joined = new CountDownLatch(group.size() - 1);
+        for (LoadTestPlayer player : group.subList(1, group.size())) {
+          player.join(token, joined);
+        }
+        if (!joined.await(60, TimeUnit.SECONDS)) {
+          System.err.println("Session " + token + " started before every player had joined");
+        }
+        leader.start();
+      }
+      if (!done.await(config.getTimeoutSeconds(), TimeUnit.SECONDS)) {
+        System.err.println("Timed out with " + done.getCount() + " players still playing");
+      }
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      System.gc();
+      metrics.print(config, elapsedMillis, heapBefore, metrics.getHeapUsed());
+    } finally {
+      players.forEach(LoadTestPlayer::disconnect);
+      scheduler.shutdownNow();
+      stompClient.stop();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package no.itszipzon.loadtest;
+
+/**
+ * The shape of a load test run, read from system properties.
+ */
+public class LoadTestConfig {
+
+  private final int sessions;
+  private final int players;
+  private final int questions;
+  private final int timer;
+  private final long maxThinkMillis;
+  private final long timeoutSeconds;
+
+  private LoadTestConfig(int sessions, int players, int questions, int timer,
+      long maxThinkMillis, long timeoutSeconds) {
+    this.sessions = sessions;
+    this.players = players;
+    this.questions = questions;
+    this.timer = timer;
+    this.maxThinkMillis = maxThinkMillis;
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  /**
+   * Reads the configuration from the loadtest.* system properties.
+   *
+   * @return The configuration.
+   */
+  public static LoadTestConfig fromSystemProperties() {
+    return new LoadTestConfig(
+        Integer.getInteger("loadtest.sessions", 10),
+        Math.max(2, Integer.getInteger("loadtest.players", 10)),
+        Integer.getInteger("loadtest.questions", 5),
+        Math.max(5, Integer.getInteger("loadtest.timer", 10)),
+        Long.getLong("loadtest.think-ms", 3000),
+        Long.getLong("loadtest.timeout-seconds", 600));
+  }
+
+  public int getSessions() {
+    return sessions;
+  }
+
+  /**
+   * Gets the amount of players in each session, the leader included.
+   *
+   * @return The amount of players.
+   */
+  public int getPlayers() {
+    return players;
+  }
+
+  public int getQuestions() {
+    return questions;
+  }
+
+  public int getTimer() {
+    return timer;
+  }
+
+  public long getMaxThinkMillis() {
+    return maxThinkMillis;
+  }
+
+  public long getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  @Override
+  public String toString() {
+    return sessions + " sessions x " + players + " players, " + questions + " questions of "
+        + timer + "s, up to " + maxThinkMillis + "ms think time";
+  }
+}
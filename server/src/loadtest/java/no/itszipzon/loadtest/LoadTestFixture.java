@@ -0,0 +1,114 @@
+package no.itszipzon.loadtest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import no.itszipzon.config.JwtUtil;
+import no.itszipzon.repo.QuizRepo;
+import no.itszipzon.repo.UserRepo;
+import no.itszipzon.tables.Quiz;
+import no.itszipzon.tables.QuizOption;
+import no.itszipzon.tables.QuizQuestion;
+import no.itszipzon.tables.User;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Seeds the embedded database with the users and the quiz a load test plays, and mints a token
+ * for every user.
+ */
+public class LoadTestFixture {
+
+  private static final int OPTIONS_PER_QUESTION = 4;
+
+  private final long quizId;
+  private final List<LoadTestUser> users;
+
+  private LoadTestFixture(long quizId, List<LoadTestUser> users) {
+    this.quizId = quizId;
+    this.users = users;
+  }
+
+  /**
+   * Creates the users and the quiz.
+   *
+   * @param context The application context of the server.
+   * @param config  The load test configuration.
+   * @return The fixture.
+   */
+  public static LoadTestFixture create(ApplicationContext context, LoadTestConfig config) {
+    UserRepo userRepo = context.getBean(UserRepo.class);
+    QuizRepo quizRepo = context.getBean(QuizRepo.class);
+    JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < config.getSessions() * config.getPlayers(); i++) {
+      User user = new User();
+      user.setUsername("load" + i);
+      user.setEmail("load" + i + "@loadtest.local");
+      user.setPassword("-");
+      user.setTerms(LocalDateTime.now());
+      users.add(user);
+    }
+    users = userRepo.saveAll(users);
+
+    Quiz quiz = new Quiz();
+    quiz.setTitle("Load test");
+    quiz.setDescription("Generated by the load test");
+    quiz.setThumbnail("default");
+    quiz.setTimer(config.getTimer());
+    quiz.setUser(users.get(0));
+    List<QuizQuestion> questions = new ArrayList<>();
+    for (int i = 0; i < config.getQuestions(); i++) {
+      QuizQuestion question = new QuizQuestion();
+      question.setQuestion("Question " + (i + 1));
+      question.setQuiz(quiz);
+      List<QuizOption> options = new ArrayList<>();
+      for (int j = 0; j < OPTIONS_PER_QUESTION; j++) {
+        QuizOption option = new QuizOption();
+        option.setOptionText("Option " + (j + 1));
+        option.setCorrect(j == 0);
+        option.setQuizQuestion(question);
+        options.add(option);
+      }
+      question.setQuizOptions(options);
+      questions.add(question);
+    }
+    quiz.setQuizQuestions(questions);
+    quiz = quizRepo.save(quiz);
+
+    List<LoadTestUser> loadTestUsers = new ArrayList<>(users.size());
+    for (User user : users) {
+      loadTestUsers.add(new LoadTestUser(user.getUsername(), jwtUtil.generateToken(user, 24)));
+    }
+    return new LoadTestFixture(quiz.getQuizId(), loadTestUsers);
+  }
+
+  public long getQuizId() {
+    return quizId;
+  }
+
+  public List<LoadTestUser> getUsers() {
+    return users;
+  }
+
+  /**
+   * A seeded user and its token.
+   */
+  public static class LoadTestUser {
+    private final String username;
+    private final String token;
+
+    public LoadTestUser(String username, String token) {
+      this.username = username;
+      this.token = token;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public String getToken() {
+      return token;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package no.itszipzon.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the measurements of a load test run. Safe to record into from any thread.
+ */
+public class LoadTestMetrics {
+
+  private final Recorder joinLatency = new Recorder();
+  private final Recorder answerLatency = new Recorder();
+  private final LongAdder frames = new LongAdder();
+  private final LongAdder droppedFrames = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder finishedPlayers = new LongAdder();
+  private final AtomicLong peakHeap = new AtomicLong();
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+  public void recordJoin(long nanos) {
+    joinLatency.record(nanos);
+  }
+
+  public void recordAnswer(long nanos) {
+    answerLatency.record(nanos);
+  }
+
+  public void recordFrame() {
+    frames.increment();
+  }
+
+  public void recordDropped(long amount) {
+    droppedFrames.add(amount);
+  }
+
+  public void recordError() {
+    errors.increment();
+  }
+
+  public void recordFinished() {
+    finishedPlayers.increment();
+  }
+
+  /**
+   * Samples the heap, keeping the highest value seen.
+   */
+  public void sampleHeap() {
+    long used = memory.getHeapMemoryUsage().getUsed();
+    peakHeap.accumulateAndGet(used, Math::max);
+  }
+
+  public long getHeapUsed() {
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Prints the report.
+   *
+   * @param config        The load test configuration.
+   * @param elapsedMillis How long the run took.
+   * @param heapBefore    The heap in use before the sessions were started.
+   * @param heapAfter     The heap in use at the end of the run.
+   */
+  public void print(LoadTestConfig config, long elapsedMillis, long heapBefore, long heapAfter) {
+    System.out.println();
+    System.out.println("Load test: " + config);
+    System.out.println("Elapsed:          " + elapsedMillis + " ms");
+    System.out.println("Players finished: " + finishedPlayers.sum() + " / "
+        + (long) config.getSessions() * config.getPlayers());
+    System.out.println("Join latency:     " + joinLatency.summary());
+    System.out.println("Answer latency:   " + answerLatency.summary());
+    System.out.println("Frames received:  " + frames.sum());
+    System.out.println("Dropped frames:   " + droppedFrames.sum());
+    System.out.println("Errors:           " + errors.sum());
+    System.out.println("Heap before:      " + toMegabytes(heapBefore));
+    System.out.println("Heap peak:        " + toMegabytes(peakHeap.get()));
+    System.out.println("Heap after:       " + toMegabytes(heapAfter));
+    System.out.println("(the heap is shared by the server and the simulated clients)");
+  }
+
+  private static String toMegabytes(long bytes) {
+    return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+  }
+
+  /**
+   * Keeps every sample so exact percentiles can be taken at the end.
+   */
+  private static class Recorder {
+    private long[] samples = new long[1024];
+    private int size;
+
+    private synchronized void record(long nanos) {
+      if (size == samples.length) {
+        samples = Arrays.copyOf(samples, size * 2);
+      }
+      samples[size++] = nanos;
+    }
+
+    private synchronized String summary() {
+      if (size == 0) {
+        return "no samples";
+      }
+      long[] sorted = Arrays.copyOf(samples, size);
+      Arrays.sort(sorted);
+      return String.format("n=%d p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms", size,
+          percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+          sorted[size - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+      int index = (int) Math.ceil(percentile * sorted.length) - 1;
+      return sorted[Math.max(0, index)] / 1e6;
+    }
+  }
+}
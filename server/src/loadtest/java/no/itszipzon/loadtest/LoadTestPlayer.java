@@ -0,0 +1,274 @@
+package no.itszipzon.loadtest;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+/**
+ * A simulated player on its own STOMP connection.
+ *
+ * <p>It follows the event topic of its session, answers every question after a random think
+ * time, and records how long the server takes to acknowledge its join and its answers. Sequence
+ * numbers are checked on every event, so frames the broker never delivered show up as gaps.
+ */
+public class LoadTestPlayer extends StompSessionHandlerAdapter {
+
+  private final LoadTestFixture.LoadTestUser user;
+  private final LoadTestConfig config;
+  private final LoadTestMetrics metrics;
+  private final ScheduledExecutorService scheduler;
+  private final CountDownLatch done;
+  private StompSession session;
+  private String gameToken;
+  private CountDownLatch joined;
+  private long lastSeq;
+  private volatile long joinSent;
+  private volatile long answerSent;
+  private volatile boolean finished;
+
+  /**
+   * Constructor for a simulated player.
+   *
+   * @param user      The user the player plays as.
+   * @param config    The load test configuration.
+   * @param metrics   Where to record measurements.
+   * @param scheduler Runs the delayed answers.
+   * @param done      Counted down when the player's game ends.
+   */
+  public LoadTestPlayer(LoadTestFixture.LoadTestUser user, LoadTestConfig config,
+      LoadTestMetrics metrics, ScheduledExecutorService scheduler, CountDownLatch done) {
+    this.user = user;
+    this.config = config;
+    this.metrics = metrics;
+    this.scheduler = scheduler;
+    this.done = done;
+  }
+
+  /**
+   * Opens the STOMP connection, authenticated with the user's token.
+   *
+   * @param stompClient The STOMP client.
+   * @param url         The SockJS endpoint.
+   * @return Completes when the connection is established.
+   */
+  public CompletableFuture<StompSession> connect(WebSocketStompClient stompClient, String url) {
+    StompHeaders connectHeaders = new StompHeaders();
+    connectHeaders.add("Authorization", "Bearer " + user.getToken());
+    return stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, this)
+        .thenApply(stompSession -> this.session = stompSession);
+  }
+
+  /**
+   * Creates a quiz session with this player as the leader.
+   *
+   * @param quizId The quiz to play.
+   * @return The token of the new session.
+   * @throws Exception If the session could not be created in time.
+   */
+  public String create(long quizId) throws Exception {
+    CompletableFuture<String> created = new CompletableFuture<>();
+    session.subscribe("/topic/quiz/create/" + user.getUsername(), frameHandler(payload -> {
+      if (payload instanceof Map<?, ?> details && details.get("token") != null) {
+        created.complete(details.get("token").toString());
+      } else {
+        created.completeExceptionally(new IllegalStateException(String.valueOf(payload)));
+      }
+    }));
+    Map<String, Object> message = new HashMap<>();
+    message.put("quizId", quizId);
+    message.put("userToken", user.getToken());
+    session.send("/app/quiz/create", message);
+    return created.get(30, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Follows a session the player leads. The leader is in the session from the start, so there
+   * is no join to measure.
+   *
+   * @param token The token of the session.
+   */
+  public void follow(String token) {
+    this.gameToken = token;
+    subscribeEvents();
+  }
+
+  /**
+   * Joins a session.
+   *
+   * @param token  The token of the session.
+   * @param joined Counted down when the server has acknowledged the join.
+   */
+  public void join(String token, CountDownLatch joined) {
+    this.gameToken = token;
+    this.joined = joined;
+    subscribeEvents();
+    joinSent = System.nanoTime();
+    session.send("/app/quiz/join", message(Map.of()));
+  }
+
+  /**
+   * Starts the game. Only the leader can do this.
+   */
+  public void start() {
+    session.send("/app/quiz/start", message(Map.of()));
+  }
+
+  /**
+   * Closes the connection.
+   */
+  public void disconnect() {
+    if (session != null && session.isConnected()) {
+      session.disconnect();
+    }
+  }
+
+  @Override
+  public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+      byte[] payload, Throwable exception) {
+    metrics.recordError();
+  }
+
+  @Override
+  public void handleTransportError(StompSession session, Throwable exception) {
+    if (!finished) {
+      metrics.recordError();
+      finish(false);
+    }
+  }
+
+  private void subscribeEvents() {
+    session.subscribe("/topic/quiz/session/" + gameToken + "/events", frameHandler(payload -> {
+      if (payload instanceof Map<?, ?> event) {
+        onEvent(event);
+      }
+    }));
+  }
+
+  private void onEvent(Map<?, ?> event) {
+    metrics.recordFrame();
+    long seq = ((Number) event.get("seq")).longValue();
+    if (seq > 0) {
+      if (lastSeq > 0 && seq > lastSeq + 1) {
+        metrics.recordDropped(seq - lastSeq - 1);
+      }
+      lastSeq = Math.max(lastSeq, seq);
+    }
+    Map<?, ?> data = (Map<?, ?>) event.get("data");
+    switch (String.valueOf(event.get("type"))) {
+      case "PLAYER_JOINED":
+        if (user.getUsername().equals(data.get("username"))) {
+          acknowledgeJoin();
+        }
+        break;
+      case "AGGREGATE":
+        acknowledgeJoin();
+        acknowledgeAnswer();
+        break;
+      case "ANSWER_COUNT":
+        if (user.getUsername().equals(data.get("username"))) {
+          acknowledgeAnswer();
+        }
+        break;
+      case "STATE":
+        if ("quiz".equals(data.get("state")) && "next".equals(data.get("message"))) {
+          scheduleAnswer((Map<?, ?>) data.get("question"));
+        } else if ("end".equals(data.get("state"))) {
+          finish(true);
+        }
+        break;
+      case "ERROR":
+        metrics.recordError();
+        if (joinSent != 0) {
+          joinSent = 0;
+          joined.countDown();
+          finish(false);
+        }
+        break;
+      case "CLOSED":
+        finish(false);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void acknowledgeJoin() {
+    long sent = joinSent;
+    if (sent != 0) {
+      joinSent = 0;
+      metrics.recordJoin(System.nanoTime() - sent);
+      joined.countDown();
+    }
+  }
+
+  private void acknowledgeAnswer() {
+    long sent = answerSent;
+    if (sent != 0) {
+      answerSent = 0;
+      metrics.recordAnswer(System.nanoTime() - sent);
+    }
+  }
+
+  private void scheduleAnswer(Map<?, ?> question) {
+    List<?> options = (List<?>) question.get("quizOptions");
+    Map<?, ?> option = (Map<?, ?>) options.get(ThreadLocalRandom.current().nextInt(options.size()));
+    long think = ThreadLocalRandom.current().nextLong(config.getMaxThinkMillis() + 1);
+    scheduler.schedule(() -> {
+      if (finished || !session.isConnected()) {
+        return;
+      }
+      answerSent = System.nanoTime();
+      session.send("/app/quiz/game", message(Map.of(
+          "message", "answer",
+          "answer", option.get("option"),
+          "answerId", option.get("id"))));
+    }, think, TimeUnit.MILLISECONDS);
+  }
+
+  private void finish(boolean completed) {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    if (completed) {
+      metrics.recordFinished();
+    }
+    done.countDown();
+  }
+
+  private Map<String, Object> message(Map<String, Object> content) {
+    Map<String, Object> message = new HashMap<>();
+    message.put("token", gameToken);
+    message.put("userToken", user.getToken());
+    message.put("message", content);
+    return message;
+  }
+
+  private StompFrameHandler frameHandler(Consumer<Object> handler) {
+    return new StompFrameHandler() {
+      @Override
+      public Type getPayloadType(StompHeaders headers) {
+        return Object.class;
+      }
+
+      @Override
+      public void handleFrame(StompHeaders headers, Object payload) {
+        handler.accept(payload);
+      }
+    };
+  }
+}
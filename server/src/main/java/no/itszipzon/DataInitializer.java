@@ -3,6 +3,7 @@ package no.itszipzon;
 import java.util.List;
 import no.itszipzon.repo.CategoryRepo;
 import no.itszipzon.repo.LevelRepo;
+import no.itszipzon.service.LevelTable;
 import no.itszipzon.tables.Category;
 import no.itszipzon.tables.Level;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,8 @@ public class DataInitializer implements CommandLineRunner {
   private CategoryRepo categoryRepo;
   @Autowired
   private LevelRepo levelRepo;
+  @Autowired
+  private LevelTable levelTable;
 
   @Override
   public void run(String... args) throws Exception {
@@ -86,5 +89,6 @@ public class DataInitializer implements CommandLineRunner {
         levelRepo.save(level);
       }
     }
+    levelTable.refresh();
   }
 }
@@ -6,7 +6,6 @@ import no.itszipzon.dto.QuizDto;
 import no.itszipzon.dto.QuizOptionDto;
 import no.itszipzon.dto.QuizQuestionDto;
 import no.itszipzon.dto.QuizWithQuestionsDto;
-import no.itszipzon.repo.QuizRepo;
 import no.itszipzon.tables.Quiz;
 import no.itszipzon.tables.QuizQuestion;
 import no.itszipzon.tables.User;
@@ -31,18 +30,19 @@ public class DtoParser {
   }
 
   /**
-   * Maps a quiz entity to a quiz with questions DTO.
+   * Maps a quiz entity to a quiz with questions DTO. The owner of the quiz must be loaded with
+   * it, like QuizRepo.findById does.
    *
    * @param quiz The quiz entity.
    * @return The quiz with questions DTO.
    */
-  public static QuizWithQuestionsDto mapToQuizWithQuestionsDto(Quiz quiz, QuizRepo quizRepo) {
+  public static QuizWithQuestionsDto mapToQuizWithQuestionsDto(Quiz quiz) {
     List<QuizQuestionDto> questionsDto = quiz.getQuizQuestions().stream()
         .map(DtoParser::mapToQuestionDto).collect(Collectors.toList());
 
     return new QuizWithQuestionsDto(quiz.getQuizId(), quiz.getTitle(), quiz.getDescription(),
         quiz.getThumbnail(), quiz.getTimer(), quiz.getCreatedAt(), questionsDto,
-        quizRepo.findUsernameFromQuizId(quiz.getQuizId()).get());
+        quiz.getUser().getUsername());
   }
 
   /**
@@ -0,0 +1,69 @@
+package no.itszipzon;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * A position in a list sorted by a timestamp and then by an ID, both descending. The next page
+ * of the list is fetched by seeking past the position instead of skipping an offset, so deep
+ * pages cost the same as the first one.
+ *
+ * <p>Clients get the position as an opaque string and send it back unchanged.
+ */
+public final class PageCursor {
+
+  private final LocalDateTime timestamp;
+  private final long id;
+
+  /**
+   * Constructor for a cursor.
+   *
+   * @param timestamp The timestamp of the last row of a page.
+   * @param id        The ID of the last row of a page.
+   */
+  public PageCursor(LocalDateTime timestamp, long id) {
+    this.timestamp = timestamp;
+    this.id = id;
+  }
+
+  public LocalDateTime getTimestamp() {
+    return timestamp;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Encodes the cursor for a client.
+   *
+   * @return The opaque cursor.
+   */
+  public String encode() {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((timestamp + "|" + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor sent by a client.
+   *
+   * @param cursor The opaque cursor.
+   * @return The cursor.
+   * @throws IllegalArgumentException If the cursor was not made by {@link #encode()}.
+   */
+  public static PageCursor decode(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = value.indexOf('|');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Invalid cursor");
+      }
+      return new PageCursor(LocalDateTime.parse(value.substring(0, separator)),
+          Long.parseLong(value.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+}
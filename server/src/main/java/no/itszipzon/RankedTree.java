@@ -0,0 +1,178 @@
+package no.itszipzon;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An order-statistic tree: a sorted set that also knows the position of every element.
+ *
+ * <p>It is a treap where every node keeps the size of its subtree, so inserting, removing and
+ * finding the rank of an element all take O(log n) expected time, and the first k elements are
+ * read in O(log n + k). It is not thread safe.
+ *
+ * @param <T> The type of the elements.
+ */
+public class RankedTree<T> {
+
+  private final Comparator<? super T> comparator;
+  private Node<T> root;
+
+  public RankedTree(Comparator<? super T> comparator) {
+    this.comparator = comparator;
+  }
+
+  /**
+   * Inserts an element.
+   *
+   * @param value The element.
+   * @return false if an equal element is already in the tree.
+   */
+  public boolean insert(T value) {
+    if (indexOf(value) >= 0) {
+      return false;
+    }
+    Node<T>[] parts = split(root, value, false);
+    root = merge(merge(parts[0], new Node<>(value)), parts[1]);
+    return true;
+  }
+
+  /**
+   * Removes an element.
+   *
+   * @param value The element.
+   * @return false if the element was not in the tree.
+   */
+  public boolean remove(T value) {
+    Node<T>[] parts = split(root, value, false);
+    Node<T>[] rest = split(parts[1], value, true);
+    root = merge(parts[0], rest[1]);
+    return rest[0] != null;
+  }
+
+  /**
+   * Gets the position of an element in sorted order.
+   *
+   * @param value The element.
+   * @return The zero-based position, or -1 if the element is not in the tree.
+   */
+  public int indexOf(T value) {
+    int index = 0;
+    Node<T> node = root;
+    while (node != null) {
+      int cmp = comparator.compare(value, node.value);
+      if (cmp < 0) {
+        node = node.left;
+      } else if (cmp > 0) {
+        index += size(node.left) + 1;
+        node = node.right;
+      } else {
+        return index + size(node.left);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets a range of elements in sorted order.
+   *
+   * @param from  The zero-based position of the first element.
+   * @param count The maximum amount of elements.
+   * @return The elements.
+   */
+  public List<T> range(int from, int count) {
+    int to = (int) Math.min((long) from + count, size());
+    List<T> values = new ArrayList<>(Math.max(0, to - from));
+    collect(root, from, to, 0, values);
+    return values;
+  }
+
+  public List<T> first(int count) {
+    return range(0, count);
+  }
+
+  public int size() {
+    return size(root);
+  }
+
+  public void clear() {
+    root = null;
+  }
+
+  private void collect(Node<T> node, int from, int to, int offset, List<T> values) {
+    if (node == null || offset >= to || offset + node.size <= from) {
+      return;
+    }
+    collect(node.left, from, to, offset, values);
+    int index = offset + size(node.left);
+    if (index >= from && index < to) {
+      values.add(node.value);
+    }
+    collect(node.right, from, to, index + 1, values);
+  }
+
+  /**
+   * Splits a subtree into the nodes before a value and the rest. When inclusive, nodes equal to
+   * the value go to the first part.
+   */
+  @SuppressWarnings("unchecked")
+  private Node<T>[] split(Node<T> node, T value, boolean inclusive) {
+    if (node == null) {
+      return new Node[2];
+    }
+    int cmp = comparator.compare(node.value, value);
+    if (cmp < 0 || (inclusive && cmp == 0)) {
+      Node<T>[] parts = split(node.right, value, inclusive);
+      node.right = parts[0];
+      update(node);
+      parts[0] = node;
+      return parts;
+    }
+    Node<T>[] parts = split(node.left, value, inclusive);
+    node.left = parts[1];
+    update(node);
+    parts[1] = node;
+    return parts;
+  }
+
+  /**
+   * Merges two subtrees where every node of the first comes before every node of the second.
+   */
+  private Node<T> merge(Node<T> first, Node<T> second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    if (first.priority > second.priority) {
+      first.right = merge(first.right, second);
+      update(first);
+      return first;
+    }
+    second.left = merge(first, second.left);
+    update(second);
+    return second;
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static void update(Node<?> node) {
+    node.size = 1 + size(node.left) + size(node.right);
+  }
+
+  private static final class Node<T> {
+    private final T value;
+    private final int priority = ThreadLocalRandom.current().nextInt();
+    private Node<T> left;
+    private Node<T> right;
+    private int size = 1;
+
+    private Node(T value) {
+      this.value = value;
+    }
+  }
+}
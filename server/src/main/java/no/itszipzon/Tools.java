@@ -14,11 +14,19 @@ import org.springframework.web.multipart.MultipartFile;
  * Class for tools that are used in the backend.
  */
 public class Tools {
+
+  /**
+   * The characters tokens are made of.
+   */
+  public static final String TOKEN_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+  private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
   private Tools() {
   }
 
   public static Dotenv getEnv() {
-    return Dotenv.load();
+    return Dotenv.configure().ignoreIfMissing().load();
   }
 
   /**
@@ -28,15 +36,23 @@ public class Tools {
    * @return token
    */
   public static String generateToken(int length) {
-    String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    SecureRandom random = new SecureRandom();
     StringBuilder token = new StringBuilder(length);
     for (int i = 0; i < length; i++) {
-      token.append(characters.charAt(random.nextInt(characters.length())));
+      token.append(TOKEN_CHARACTERS.charAt(SECURE_RANDOM.nextInt(TOKEN_CHARACTERS.length())));
     }
     return token.toString();
   }
 
+  /**
+   * Gets the secure random shared by the backend. Seeding a secure random is expensive, so one
+   * instance is made and reused; it is safe to use from any thread.
+   *
+   * @return The secure random.
+   */
+  public static SecureRandom getSecureRandom() {
+    return SECURE_RANDOM;
+  }
+
   /**
    * Method to get the correct URL.
    *
@@ -1,7 +1,12 @@
 package no.itszipzon.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -9,11 +14,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import no.itszipzon.PageCursor;
 import no.itszipzon.Tools;
 import no.itszipzon.config.JwtUtil;
 import no.itszipzon.dto.QuizDto;
-import no.itszipzon.dto.QuizOptionDto;
+import no.itszipzon.dto.QuizPageDto;
 import no.itszipzon.dto.QuizQuestionDto;
 import no.itszipzon.dto.QuizWithQuestionsDto;
 import no.itszipzon.repo.CategoryRepo;
@@ -22,6 +31,9 @@ import no.itszipzon.repo.QuizOptionRepo;
 import no.itszipzon.repo.QuizQuestionRepo;
 import no.itszipzon.repo.QuizRepo;
 import no.itszipzon.repo.UserRepo;
+import no.itszipzon.service.QuizPackageCache;
+import no.itszipzon.service.QuizPopularity;
+import no.itszipzon.service.QuizTrending;
 import no.itszipzon.service.UserService;
 import no.itszipzon.tables.Category;
 import no.itszipzon.tables.Quiz;
@@ -40,7 +52,9 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -48,9 +62,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * QuizApi.
@@ -58,6 +74,8 @@ import org.springframework.web.multipart.MultipartFile;
 @RestController
 @RequestMapping("api/quiz")
 public class QuizApi {
+  private static final int MAX_SEEK_SIZE = 100;
+
   @Autowired
   private QuizRepo quizRepo;
   @Autowired
@@ -74,23 +92,114 @@ public class QuizApi {
   private UserRepo userRepo;
   @Autowired
   private QuizOptionRepo optionRepo;
+  @Autowired
+  private QuizPackageCache quizPackageCache;
+  @Autowired
+  private QuizPopularity quizPopularity;
+  @Autowired
+  private QuizTrending quizTrending;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  private TransactionTemplate readOnlyTransactionTemplate;
+  @Autowired
+  private ObjectMapper objectMapper;
 
   /**
-   * Get all quizzes.
+   * Sets up the read-only transaction the catalog is streamed in.
+   */
+  @PostConstruct
+  public void init() {
+    readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+    readOnlyTransactionTemplate.setReadOnly(true);
+  }
+
+  /**
+   * Get all quizzes. The summaries are streamed from the database to the client as they are
+   * read, as a JSON array, or as newline delimited JSON if the client accepts
+   * application/x-ndjson, so the memory used does not grow with the catalog.
    *
+   * @param accept The accepted media types.
    * @return quizzes.
    */
   @GetMapping
-  @Transactional(readOnly = true)
-  public ResponseEntity<List<QuizDto>> getAllQuizzes() {
-    return new ResponseEntity<>(
-        quizRepo.findAll().stream().map(this::mapToQuizDto).collect(Collectors.toList()),
-        HttpStatus.OK);
+  public ResponseEntity<StreamingResponseBody> getAllQuizzes(
+      @RequestHeader(value = "Accept", required = false) String accept) {
+    boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+    StreamingResponseBody body = out -> readOnlyTransactionTemplate.executeWithoutResult(status -> {
+      try (Stream<QuizDto> quizzes = quizRepo.streamAllQuizzesSummary()) {
+        writeQuizzes(quizzes, out, ndjson);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    return ResponseEntity.ok()
+        .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+        .body(body);
+  }
+
+  private void writeQuizzes(Stream<QuizDto> quizzes, OutputStream out, boolean ndjson)
+      throws IOException {
+    if (!ndjson) {
+      out.write('[');
+    }
+    boolean first = true;
+    for (QuizDto quiz : (Iterable<QuizDto>) quizzes::iterator) {
+      if (!first && !ndjson) {
+        out.write(',');
+      }
+      out.write(objectMapper.writeValueAsBytes(quiz));
+      if (ndjson) {
+        out.write('\n');
+      }
+      first = false;
+    }
+    if (!ndjson) {
+      out.write(']');
+    }
+  }
+
+  /**
+   * Fetches a page of quizzes after a cursor. One row more than the page is fetched to find out
+   * whether there is a next page without counting.
+   *
+   * @param cursor The cursor from the previous page, or null for the first page.
+   * @param size   The number of quizzes per page.
+   * @param query  Fetches the quizzes after a position, limited by a pageable.
+   * @param key    Gets the position of a quiz.
+   * @return The page, or 400 if the cursor or size is invalid.
+   */
+  private ResponseEntity<QuizPageDto> seek(String cursor, int size,
+      BiFunction<PageCursor, Pageable, List<QuizDto>> query, Function<QuizDto, PageCursor> key) {
+    if (size < 1 || size > MAX_SEEK_SIZE) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    PageCursor position;
+    try {
+      position = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    List<QuizDto> quizzes = query.apply(position, PageRequest.of(0, size + 1));
+    String nextCursor = null;
+    if (quizzes.size() > size) {
+      quizzes = quizzes.subList(0, size);
+      nextCursor = key.apply(quizzes.get(size - 1)).encode();
+    }
+    return new ResponseEntity<>(new QuizPageDto(quizzes, nextCursor), HttpStatus.OK);
+  }
+
+  private static PageCursor getCreatedCursor(QuizDto quiz) {
+    return new PageCursor(quiz.getCreatedAt(), quiz.getId());
   }
 
   /**
    * Get all quizzes with pagination.
    *
+   * <p>Any sort is accepted here. Only the default order, createdAt descending, also has a
+   * seek variant, {@code /all/seek}; other orders keep using this offset endpoint.
+   *
    * @param page page.
    * @param size size.
    * @return quizzes.
@@ -107,6 +216,27 @@ public class QuizApi {
     return new ResponseEntity<>(quizzes, HttpStatus.OK);
   }
 
+  /**
+   * Get all quizzes, newest first, one page at a time. Each page carries the cursor of the
+   * next one, so deep pages cost the same as the first.
+   *
+   * <p>This is the seek variant of {@code /all/filter} for its default order only, createdAt
+   * descending. There is no keyset query for the other {@code by} and {@code orientation}
+   * values, so those sorts stay on the offset endpoint.
+   *
+   * @param cursor The cursor from the previous page, or null for the first page.
+   * @param size   The number of quizzes per page.
+   * @return quizzes.
+   */
+  @GetMapping("/all/seek")
+  public ResponseEntity<QuizPageDto> getQuizzesBySeek(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    return seek(cursor, size, (position, limit) -> quizRepo.findQuizzesBefore(
+        position == null ? null : position.getTimestamp(),
+        position == null ? null : position.getId(), limit), QuizApi::getCreatedCursor);
+  }
+
   /**
    * Get quiz by id.
    *
@@ -115,9 +245,10 @@ public class QuizApi {
    */
   @GetMapping("/{id}")
   public ResponseEntity<QuizWithQuestionsDto> getQuizById(@PathVariable Long id) {
-    Optional<Quiz> quiz = quizRepo.findById(id);
-    return quiz.map(value -> ResponseEntity.ok(mapToQuizWithQuestionsDto(value)))
-        .orElseGet(() -> ResponseEntity.notFound().build());
+    Optional<QuizWithQuestionsDto> quiz = quizPackageCache.get(id);
+    quiz.ifPresent(value -> value.getQuizQuestions()
+        .forEach(question -> Collections.shuffle(question.getQuizOptions())));
+    return quiz.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
   }
 
   /**
@@ -179,6 +310,23 @@ public class QuizApi {
     return new ResponseEntity<>(quizzes.get(), HttpStatus.OK);
   }
 
+  /**
+   * Get quizzes by category, newest first, one page at a time.
+   *
+   * @param category category.
+   * @param cursor   The cursor from the previous page, or null for the first page.
+   * @param size     The number of quizzes per page.
+   * @return quizzes.
+   */
+  @GetMapping("/category/{category}/seek")
+  public ResponseEntity<QuizPageDto> getQuizzesByCategorySeek(@PathVariable String category,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    return seek(cursor, size, (position, limit) -> quizRepo.findQuizzesByCategoryBefore(
+        category, position == null ? null : position.getTimestamp(),
+        position == null ? null : position.getId(), limit), QuizApi::getCreatedCursor);
+  }
+
   @GetMapping("/category/count/{categoryName}")
   public ResponseEntity<Long> getQuizCountByCategory(@PathVariable String categoryName) {
     long count = categoryRepo.countQuizzesByCategory(categoryName);
@@ -210,6 +358,29 @@ public class QuizApi {
     return new ResponseEntity<>(quizzes, HttpStatus.OK);
   }
 
+  /**
+   * Get the quizzes of the logged in user, newest first, one page at a time.
+   *
+   * @param authorizationHeader authorizationHeader.
+   * @param cursor              The cursor from the previous page, or null for the first page.
+   * @param size                The number of quizzes per page.
+   * @return quizzes.
+   */
+  @GetMapping("/user/self/seek")
+  public ResponseEntity<QuizPageDto> getQuizzesByUserSeek(
+      @RequestHeader("Authorization") String authorizationHeader,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+      return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+    Claims claims = jwtUtil.extractClaims(authorizationHeader.substring(7));
+    if (claims == null) {
+      return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+    return getQuizzesByUsernameSeek(claims.getSubject(), cursor, size);
+  }
+
   /**
    * Get quizzes by search.
    *
@@ -225,6 +396,23 @@ public class QuizApi {
     return new ResponseEntity<>(quizzes, HttpStatus.OK);
   }
 
+  /**
+   * Get the quizzes of a user, newest first, one page at a time.
+   *
+   * @param username username.
+   * @param cursor   The cursor from the previous page, or null for the first page.
+   * @param size     The number of quizzes per page.
+   * @return quizzes.
+   */
+  @GetMapping("/user/username/{username}/seek")
+  public ResponseEntity<QuizPageDto> getQuizzesByUsernameSeek(@PathVariable String username,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    return seek(cursor, size, (position, limit) -> quizRepo.findUsersQuizzesBefore(username,
+        position == null ? null : position.getTimestamp(),
+        position == null ? null : position.getId(), limit), QuizApi::getCreatedCursor);
+  }
+
   /**
    * Get quizzes by search.
    *
@@ -251,6 +439,34 @@ public class QuizApi {
     return new ResponseEntity<>(quizzes, HttpStatus.OK);
   }
 
+  /**
+   * Get the quizzes the logged in user has taken, latest attempt first, one page at a time.
+   *
+   * @param authorizationHeader authorizationHeader.
+   * @param cursor              The cursor from the previous page, or null for the first page.
+   * @param size                The number of quizzes per page.
+   * @return quizzes.
+   */
+  @GetMapping("/user/history/seek")
+  public ResponseEntity<QuizPageDto> getQuizzesByUserHistorySeek(
+      @RequestHeader("Authorization") String authorizationHeader,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+      return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+    Claims claims = jwtUtil.extractClaims(authorizationHeader.substring(7));
+    if (claims == null) {
+      return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+    String username = claims.getSubject();
+    return seek(cursor, size, (position, limit) -> quizAttemptRepo
+        .findQuizzesFromUserHistoryBefore(username,
+            position == null ? null : position.getTimestamp(),
+            position == null ? null : position.getId(), limit),
+        quiz -> new PageCursor(quiz.getTakenAt(), quiz.getAttemptId()));
+  }
+
   /**
    * Get all questions for a specific quiz by quiz ID.
    *
@@ -259,14 +475,11 @@ public class QuizApi {
    */
   @GetMapping("/questions/{quizId}")
   public ResponseEntity<List<QuizQuestionDto>> getQuestionsByQuizId(@PathVariable Long quizId) {
-    Optional<Quiz> quizOptional = quizRepo.findById(quizId);
-    if (quizOptional.isEmpty()) {
+    Optional<QuizWithQuestionsDto> quiz = quizPackageCache.get(quizId);
+    if (quiz.isEmpty()) {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
-    // Map quiz questions to DTOs
-    List<QuizQuestionDto> questionsDto = quizOptional.get().getQuizQuestions().stream()
-        .map(this::mapToQuestionDto).collect(Collectors.toList());
-    return new ResponseEntity<>(questionsDto, HttpStatus.OK);
+    return new ResponseEntity<>(quiz.get().getQuizQuestions(), HttpStatus.OK);
   }
 
   /**
@@ -275,16 +488,40 @@ public class QuizApi {
    * @return List of popular quizzes.
    */
   @GetMapping("/popular/{page}")
-  @Transactional(readOnly = true)
   public ResponseEntity<List<Map<String, Object>>> getMostPopularQuizzes(@PathVariable int page) {
-    // Create a pageable object
-    Pageable pageable = PageRequest.of(page, 5);
-    Optional<List<QuizDto>> popularQuizzesPage = quizAttemptRepo.findTopPopularQuizzes(pageable);
-    if (popularQuizzesPage.isEmpty()) {
+    if (page < 0) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    List<Long> quizIds = quizPopularity.getPage(page, 5);
+    if (quizIds.isEmpty()) {
       return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
     }
-    // Map the results to the desired response format
-    List<Map<String, Object>> response = popularQuizzesPage.get().stream().map(record -> {
+    Map<Long, QuizDto> summaries = new HashMap<>();
+    for (QuizDto summary : quizRepo.findQuizSummariesByIds(quizIds)) {
+      summaries.put(summary.getId(), summary);
+    }
+    List<QuizDto> popularQuizzes = new ArrayList<>(quizIds.size());
+    for (Long quizId : quizIds) {
+      if (summaries.containsKey(quizId)) {
+        popularQuizzes.add(summaries.get(quizId));
+      }
+    }
+    return new ResponseEntity<>(mapToSummaries(popularQuizzes), HttpStatus.OK);
+  }
+
+  /**
+   * Get the quizzes played the most lately. The list is ranked in the background and served
+   * from memory.
+   *
+   * @return List of trending quizzes.
+   */
+  @GetMapping("/trending")
+  public ResponseEntity<List<Map<String, Object>>> getTrendingQuizzes() {
+    return new ResponseEntity<>(mapToSummaries(quizTrending.getTrending()), HttpStatus.OK);
+  }
+
+  private List<Map<String, Object>> mapToSummaries(List<QuizDto> quizzes) {
+    return quizzes.stream().map(record -> {
       Map<String, Object> quizMap = new HashMap<>();
       quizMap.put("id", record.getId());
       quizMap.put("title", record.getTitle());
@@ -296,7 +533,6 @@ public class QuizApi {
       quizMap.put("profile_picture", record.getProfilePicture());
       return quizMap;
     }).collect(Collectors.toList());
-    return new ResponseEntity<>(response, HttpStatus.OK);
   }
 
   
@@ -547,7 +783,7 @@ public class QuizApi {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
     }
     QuizAttempt quizAttempt = new QuizAttempt();
-    Optional<Quiz> quizOptional = quizRepo.findById(quizId);
+    Optional<QuizWithQuestionsDto> quizOptional = quizPackageCache.get(quizId);
 
     if (quizOptional.isEmpty()) {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -555,7 +791,7 @@ public class QuizApi {
 
     User user = userRepo.findUserByUsername(claims.getSubject()).get();
 
-    quizAttempt.setQuiz(quizOptional.get());
+    quizAttempt.setQuiz(quizRepo.getReferenceById(quizId));
     quizAttempt.setUser(user);
 
     Map<String, Object> response = new HashMap<>();
@@ -619,9 +855,9 @@ public class QuizApi {
     int xp = Tools.calculateXp(score, quizOptional.get().getQuizQuestions().size(),
         Integer.parseInt(gameData.get("amountOfCorrect").toString()), reduction);
 
-    User quizOwner = userRepo.findUserByUsername(quizOptional.get().getUser().getUsername()).get();
+    User quizOwner = userRepo.findUserByUsername(quizOptional.get().getUsername()).get();
 
-    if (user.getUsername().equalsIgnoreCase(quizOptional.get().getUser().getUsername())) {
+    if (user.getUsername().equalsIgnoreCase(quizOptional.get().getUsername())) {
       userService.addXp(user, 0);
     } else {
       userService.addXp(user, xp);
@@ -633,7 +869,10 @@ public class QuizApi {
     quizAttempt.setExpEarned(xp);
     quizAttempt.setTakenAt(now);
     quizAttempt.setQuizAnswers(quizAnswers);
-    quizAttemptRepo.save(quizAttempt);
+    transactionTemplate.executeWithoutResult(status -> {
+      quizAttemptRepo.save(quizAttempt);
+      quizPopularity.recordAttempts(quizId, 1);
+    });
     return new ResponseEntity<>(response, HttpStatus.OK);
   }
 
@@ -672,43 +911,12 @@ public class QuizApi {
     try {
       quizAttemptRepo.deleteAll(quiz.getQuizAttempts());
       quizRepo.delete(quiz);
+      quizPackageCache.invalidate(id);
+      quizPopularity.remove(id);
       return new ResponseEntity<>("Quiz deleted successfully", HttpStatus.OK);
     } catch (Exception e) {
       return new ResponseEntity<>("Error deleting quiz: " + e.getMessage(),
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
-
-  private QuizDto mapToQuizDto(Quiz quiz) {
-    User user = quiz.getUser();
-    return new QuizDto(quiz.getQuizId(), quiz.getTitle(), quiz.getDescription(),
-        quiz.getThumbnail(), quiz.getTimer(), user.getUsername(), user.getProfilePicture(),
-        quiz.getCreatedAt());
-  }
-
-  private QuizWithQuestionsDto mapToQuizWithQuestionsDto(Quiz quiz) {
-    List<QuizQuestionDto> questionsDto = quiz.getQuizQuestions().stream()
-        .map(this::mapToQuestionDto).collect(Collectors.toList());
-    
-    QuizWithQuestionsDto response = new QuizWithQuestionsDto(
-        quiz.getQuizId(),
-        quiz.getTitle(),
-        quiz.getDescription(),
-        quiz.getThumbnail(),
-        quiz.getTimer(),
-        quiz.getCreatedAt(),
-        questionsDto,
-        quizRepo.findUsernameFromQuizId(quiz.getQuizId()).get());
-
-    response.getQuizQuestions().forEach(question -> Collections.shuffle(question.getQuizOptions()));
-    return response;
-  }
-
-  private QuizQuestionDto mapToQuestionDto(QuizQuestion question) {
-    List<QuizOptionDto> optionsDto = question.getQuizOptions().stream()
-        .map(option -> new QuizOptionDto(option.getQuizOptionId(), option.getOptionText(),
-            option.isCorrect()))
-        .collect(Collectors.toList());
-    return new QuizQuestionDto(question.getQuizQuestionId(), question.getQuestion(), optionsDto);
-  }
 }
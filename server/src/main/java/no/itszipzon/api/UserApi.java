@@ -11,11 +11,10 @@ import no.itszipzon.Logger;
 import no.itszipzon.Tools;
 import no.itszipzon.config.JwtUtil;
 import no.itszipzon.dto.UserDto;
-import no.itszipzon.repo.LevelRepo;
 import no.itszipzon.repo.ResetTokenRepo;
 import no.itszipzon.repo.UserRepo;
 import no.itszipzon.service.EmailService;
-import no.itszipzon.tables.Level;
+import no.itszipzon.service.LevelTable;
 import no.itszipzon.tables.ResetToken;
 import no.itszipzon.tables.User;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,7 +47,7 @@ public class UserApi {
   @Autowired
   private EmailService emailService;
   @Autowired
-  private LevelRepo levelRepo;
+  private LevelTable levelTable;
   @Autowired
   private ResetTokenRepo resetTokenRepository;
 
@@ -74,11 +73,7 @@ public class UserApi {
       if (user.isEmpty()) {
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
       }
-      Optional<Level> level = levelRepo.getLevel(user.get().getLevel() + 1);
-      int xpToNextLevel = -1;
-      if (level.isPresent()) {
-        xpToNextLevel = level.get().getXp();
-      }
+      int xpToNextLevel = levelTable.getXpToNextLevel(user.get().getLevel());
       Map<String, Object> map = new HashMap<>();
       map.put("username", claims.getSubject());
       map.put("email", claims.get("email", String.class));
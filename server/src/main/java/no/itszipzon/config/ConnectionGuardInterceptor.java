@@ -0,0 +1,67 @@
+package no.itszipzon.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Caps how many REST requests run at once when requests run on virtual threads.
+ *
+ * <p>With platform threads the size of the Tomcat pool capped how many requests could wait on
+ * the database. Virtual threads remove that cap, so a burst would queue on the connection pool
+ * and time out together. Requests past the cap wait for a slot as long as they would wait for a
+ * connection, and are then turned away with 503.
+ */
+@Component
+public class ConnectionGuardInterceptor implements HandlerInterceptor {
+
+  private static final String PERMIT = ConnectionGuardInterceptor.class.getName() + ".permit";
+
+  private Semaphore permits;
+
+  @Value("${spring.threads.virtual.enabled:false}")
+  private boolean virtualThreads;
+  @Value("${quiz.datasource.max-concurrent-requests:100}")
+  private int maxConcurrentRequests;
+  @Value("${spring.datasource.hikari.connection-timeout:30000}")
+  private long connectionTimeout;
+
+  @PostConstruct
+  public void init() {
+    permits = new Semaphore(maxConcurrentRequests, true);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) throws IOException {
+    if (!virtualThreads || request.getAttribute(PERMIT) != null) {
+      return true;
+    }
+    try {
+      if (permits.tryAcquire(connectionTimeout, TimeUnit.MILLISECONDS)) {
+        request.setAttribute(PERMIT, Boolean.TRUE);
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is busy");
+    return false;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    if (request.getAttribute(PERMIT) != null) {
+      request.removeAttribute(PERMIT);
+      permits.release();
+    }
+  }
+}
@@ -3,6 +3,7 @@ package no.itszipzon.config;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -25,10 +26,18 @@ public class JwtUtil {
   @Value("${jwt.secret}")
   private String secret;
   private Key secretKey;
+  private JwtParser parser;
 
+  /**
+   * Builds the signing key and the parser once, so tokens are not parsed with a new parser
+   * every time.
+   */
   @PostConstruct
   public void init() {
     secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+    parser = Jwts.parserBuilder()
+        .setSigningKey(secretKey)
+        .build();
   }
 
   /**
@@ -81,11 +90,7 @@ public class JwtUtil {
    */
   public Claims extractClaims(String token) {
     try {
-      return Jwts.parserBuilder()
-            .setSigningKey(secretKey)
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+      return parser.parseClaimsJws(token).getBody();
     } catch (ExpiredJwtException e) {
       return null;
 
@@ -0,0 +1,19 @@
+package no.itszipzon.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hooks the query counter into Hibernate. REST requests, the connection pool and the JVM are
+ * measured by Spring Boot Actuator, and everything is scraped from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+    return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+  }
+}
@@ -0,0 +1,42 @@
+package no.itszipzon.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements each REST request runs, tagged like the request timers.
+ */
+@Component
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+  @Autowired
+  private QueryCounter queryCounter;
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    queryCounter.start();
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    DistributionSummary.builder("http.server.requests.queries")
+        .description("SQL statements run per request")
+        .tag("method", request.getMethod())
+        .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+        .publishPercentileHistogram()
+        .register(meterRegistry)
+        .record(queryCounter.stop());
+  }
+}
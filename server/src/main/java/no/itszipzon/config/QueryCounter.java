@@ -0,0 +1,37 @@
+package no.itszipzon.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ */
+@Component
+public class QueryCounter implements StatementInspector {
+
+  private final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+  @Override
+  public String inspect(String sql) {
+    count.get()[0]++;
+    return sql;
+  }
+
+  /**
+   * Starts counting from zero on the current thread.
+   */
+  public void start() {
+    count.get()[0] = 0;
+  }
+
+  /**
+   * Gets the amount of statements since {@link #start()} on the current thread.
+   *
+   * @return The amount of statements.
+   */
+  public int stop() {
+    int statements = count.get()[0];
+    count.remove();
+    return statements;
+  }
+}
@@ -0,0 +1,44 @@
+package no.itszipzon.config;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates a STOMP connection once, when it connects.
+ *
+ * <p>The token is read from the Authorization header of the CONNECT frame. If it is valid, a
+ * {@link UserPrincipal} is bound to the WebSocket session and handed to every message sent on
+ * it. Connections without a valid token are still accepted, so clients that send a token in
+ * each message keep working.
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+  @Autowired
+  private JwtUtil jwtUtil;
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    StompHeaderAccessor accessor =
+        MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+    if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+      return message;
+    }
+    String header = accessor.getFirstNativeHeader("Authorization");
+    if (header == null || !header.startsWith("Bearer ")) {
+      return message;
+    }
+    Claims claims = jwtUtil.extractClaims(header.substring(7));
+    if (claims != null) {
+      accessor.setUser(new UserPrincipal(claims.getSubject(), claims.get("id", Long.class)));
+    }
+    return message;
+  }
+}
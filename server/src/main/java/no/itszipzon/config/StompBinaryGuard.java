@@ -0,0 +1,62 @@
+package no.itszipzon.config;
+
+import java.util.Map;
+import no.itszipzon.socket.quiz.QuizBroadcaster;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+/**
+ * Keeps the binary topics to sessions that receive binary frames intact.
+ *
+ * <p>Over SockJS every STOMP frame is sent as a text message, which corrupts a binary payload.
+ * This interceptor is added to the handshake of the plain WebSocket endpoint, where it marks the
+ * session, and to the inbound channel, where it refuses a subscription to a binary topic from a
+ * session that was not marked.
+ */
+@Component
+public class StompBinaryGuard implements HandshakeInterceptor, ChannelInterceptor {
+
+  private static final String PLAIN_WEBSOCKET = "plainWebSocket";
+
+  @Override
+  public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+      WebSocketHandler wsHandler, Map<String, Object> attributes) {
+    attributes.put(PLAIN_WEBSOCKET, true);
+    return true;
+  }
+
+  @Override
+  public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+      WebSocketHandler wsHandler, Exception exception) {
+
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    StompHeaderAccessor accessor =
+        MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+    if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+      return message;
+    }
+    String destination = accessor.getDestination();
+    if (destination == null || !destination.endsWith(QuizBroadcaster.BINARY_SUFFIX)) {
+      return message;
+    }
+    Map<String, Object> attributes = accessor.getSessionAttributes();
+    if (attributes == null || !Boolean.TRUE.equals(attributes.get(PLAIN_WEBSOCKET))) {
+      throw new MessageDeliveryException(message,
+          "Binary topics are only available on the plain WebSocket endpoint");
+    }
+    return message;
+  }
+}
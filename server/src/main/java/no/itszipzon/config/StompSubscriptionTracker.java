@@ -0,0 +1,86 @@
+package no.itszipzon.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the STOMP subscriptions per destination, so a broadcast knows how many clients it
+ * reaches without asking the broker.
+ */
+@Component
+public class StompSubscriptionTracker implements ChannelInterceptor {
+
+  private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> destinations = new ConcurrentHashMap<>();
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    StompHeaderAccessor accessor =
+        MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+    if (accessor == null || accessor.getCommand() == null || accessor.getSessionId() == null) {
+      return message;
+    }
+    String sessionId = accessor.getSessionId();
+    switch (accessor.getCommand()) {
+      case SUBSCRIBE:
+        subscribe(sessionId, accessor.getSubscriptionId(), accessor.getDestination());
+        break;
+      case UNSUBSCRIBE:
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions != null) {
+          release(subscriptions.remove(accessor.getSubscriptionId()));
+        }
+        break;
+      case DISCONNECT:
+        Map<String, String> closed = sessions.remove(sessionId);
+        if (closed != null) {
+          closed.values().forEach(this::release);
+        }
+        break;
+      default:
+        break;
+    }
+    return message;
+  }
+
+  /**
+   * Gets the amount of subscriptions to a destination.
+   *
+   * @param destination The destination.
+   * @return The amount of subscriptions.
+   */
+  public int getSubscribers(String destination) {
+    AtomicInteger count = destinations.get(destination);
+    return count == null ? 0 : count.get();
+  }
+
+  public int getSubscriptions() {
+    return sessions.values().stream().mapToInt(Map::size).sum();
+  }
+
+  private void subscribe(String sessionId, String subscriptionId, String destination) {
+    if (subscriptionId == null || destination == null) {
+      return;
+    }
+    String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+        .put(subscriptionId, destination);
+    release(previous);
+    destinations.computeIfAbsent(destination, d -> new AtomicInteger()).incrementAndGet();
+  }
+
+  private void release(String destination) {
+    if (destination == null) {
+      return;
+    }
+    destinations.computeIfPresent(destination,
+        (d, count) -> count.decrementAndGet() <= 0 ? null : count);
+  }
+}
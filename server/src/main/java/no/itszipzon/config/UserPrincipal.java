@@ -0,0 +1,32 @@
+package no.itszipzon.config;
+
+import java.security.Principal;
+
+/**
+ * The user behind an authenticated WebSocket connection.
+ */
+public class UserPrincipal implements Principal {
+
+  private final String username;
+  private final Long id;
+
+  /**
+   * Constructor for a user principal.
+   *
+   * @param username The username of the user.
+   * @param id       The ID of the user.
+   */
+  public UserPrincipal(String username, Long id) {
+    this.username = username;
+    this.id = id;
+  }
+
+  @Override
+  public String getName() {
+    return username;
+  }
+
+  public Long getId() {
+    return id;
+  }
+}
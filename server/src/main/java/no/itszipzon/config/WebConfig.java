@@ -1,9 +1,11 @@
 package no.itszipzon.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -13,6 +15,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer {
 
+  @Autowired
+  private ConnectionGuardInterceptor connectionGuardInterceptor;
+  @Autowired
+  private QueryCountInterceptor queryCountInterceptor;
+
   @Override
   public void addCorsMappings(@NonNull CorsRegistry registry) {
 
@@ -27,5 +34,11 @@ public class WebConfig implements WebMvcConfigurer {
             .allowCredentials(true);
   }
 
+  @Override
+  public void addInterceptors(@NonNull InterceptorRegistry registry) {
+    registry.addInterceptor(connectionGuardInterceptor);
+    registry.addInterceptor(queryCountInterceptor);
+  }
+
 }
 
@@ -1,6 +1,10 @@
 package no.itszipzon.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -13,16 +17,69 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+  @Autowired
+  private StompAuthInterceptor stompAuthInterceptor;
+  @Autowired
+  private StompSubscriptionTracker stompSubscriptionTracker;
+  @Autowired
+  private StompBinaryGuard stompBinaryGuard;
+  @Value("${spring.threads.virtual.enabled:false}")
+  private boolean virtualThreads;
+  @Value("${quiz.socket.inbound-concurrency:64}")
+  private int inboundConcurrency;
+  @Value("${quiz.socket.outbound-concurrency:256}")
+  private int outboundConcurrency;
+
   @Override
   public void configureMessageBroker(MessageBrokerRegistry config) {
-    config.enableSimpleBroker("/topic");
+    config.enableSimpleBroker("/topic", "/queue");
     config.setApplicationDestinationPrefixes("/app");
+    // Virtual threads run many more sends at once, so keep each client's frames in order.
+    config.setPreservePublishOrder(virtualThreads);
   }
 
+  /**
+   * Registers the SockJS endpoint the app uses, and a plain WebSocket endpoint next to it for
+   * clients that want the binary event frames.
+   */
   @Override
   public void registerStompEndpoints(StompEndpointRegistry registry) {
     registry.addEndpoint("/socket")
             .setAllowedOrigins("http://localhost:8080", "http://10.0.2.2:8080")
             .withSockJS();
+    registry.addEndpoint("/ws")
+            .setAllowedOrigins("http://localhost:8080", "http://10.0.2.2:8080")
+            .addInterceptors(stompBinaryGuard);
+  }
+
+  @Override
+  public void configureClientInboundChannel(ChannelRegistration registration) {
+    registration.interceptors(stompAuthInterceptor, stompBinaryGuard, stompSubscriptionTracker);
+    if (virtualThreads) {
+      registration.executor(virtualThreadExecutor("stomp-inbound-", inboundConcurrency));
+    }
+  }
+
+  @Override
+  public void configureClientOutboundChannel(ChannelRegistration registration) {
+    if (virtualThreads) {
+      registration.executor(virtualThreadExecutor("stomp-outbound-", outboundConcurrency));
+    }
+  }
+
+  /**
+   * Creates an executor that runs each message on its own virtual thread. The concurrency limit
+   * stands in for the size of the platform thread pool it replaces: the inbound handlers use the
+   * database, so they must not outrun the connection pool.
+   *
+   * @param prefix           The name prefix of the threads.
+   * @param concurrencyLimit The most messages handled at once.
+   * @return The executor.
+   */
+  private SimpleAsyncTaskExecutor virtualThreadExecutor(String prefix, int concurrencyLimit) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+    executor.setVirtualThreads(true);
+    executor.setConcurrencyLimit(concurrencyLimit);
+    return executor;
   }
 }
@@ -1,5 +1,6 @@
 package no.itszipzon.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 
@@ -18,6 +19,10 @@ public class QuizDto {
   private String profilePicture;
   private LocalDateTime createdAt;
   private long userId;
+  @JsonIgnore
+  private LocalDateTime takenAt;
+  @JsonIgnore
+  private long attemptId;
 
   /**
    * Constructor.
@@ -96,6 +101,30 @@ public class QuizDto {
     this.userId = userId;
   }
 
+  /**
+   * Constructor for a quiz in the history of a user.
+   *
+   * @param id             id.
+   * @param title          title.
+   * @param description    description.
+   * @param thumbnail      thumbnail.
+   * @param timer          timer.
+   * @param username       username.
+   * @param profilePicture profilePicture.
+   * @param createdAt      createdAt.
+   * @param expEarned      xpGained.
+   * @param takenAt        when the attempt was taken.
+   * @param attemptId      the ID of the attempt.
+   */
+  public QuizDto(long id, String title, String description, String thumbnail, Integer timer,
+      String username, String profilePicture, LocalDateTime createdAt, int expEarned,
+      LocalDateTime takenAt, long attemptId) {
+    this(id, title, description, thumbnail, timer, username, profilePicture, createdAt,
+        expEarned);
+    this.takenAt = takenAt;
+    this.attemptId = attemptId;
+  }
+
   public QuizDto() {
   }
 
@@ -178,4 +207,12 @@ public class QuizDto {
   public long getUserId() {
     return this.userId;
   }
+
+  public LocalDateTime getTakenAt() {
+    return takenAt;
+  }
+
+  public long getAttemptId() {
+    return attemptId;
+  }
 }
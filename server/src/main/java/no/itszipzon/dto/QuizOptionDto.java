@@ -1,5 +1,7 @@
 package no.itszipzon.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * QuizOptionDto.
  */
@@ -7,6 +9,7 @@ public class QuizOptionDto {
 
   private long id;
   private String option;
+  private boolean correct;
 
   /**
    * QuizOptionDto.
@@ -18,7 +21,7 @@ public class QuizOptionDto {
   public QuizOptionDto(long id, String option, boolean correct) {
     this.id = id;
     this.option = option;
-
+    this.correct = correct;
   }
 
   public long getId() {
@@ -37,4 +40,18 @@ public class QuizOptionDto {
     this.option = option;
   }
 
+  /**
+   * Whether the option is a correct answer. Never sent to clients.
+   *
+   * @return true if the option is correct.
+   */
+  @JsonIgnore
+  public boolean isCorrect() {
+    return correct;
+  }
+
+  public void setCorrect(boolean correct) {
+    this.correct = correct;
+  }
+
 }
@@ -0,0 +1,38 @@
+package no.itszipzon.dto;
+
+import java.util.List;
+
+/**
+ * A page of quizzes fetched by cursor.
+ */
+public class QuizPageDto {
+  private List<QuizDto> quizzes;
+  private String nextCursor;
+
+  /**
+   * QuizPageDto.
+   *
+   * @param quizzes    The quizzes on the page.
+   * @param nextCursor The cursor of the next page, or null if this is the last page.
+   */
+  public QuizPageDto(List<QuizDto> quizzes, String nextCursor) {
+    this.quizzes = quizzes;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<QuizDto> getQuizzes() {
+    return quizzes;
+  }
+
+  public void setQuizzes(List<QuizDto> quizzes) {
+    this.quizzes = quizzes;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+}
@@ -1,8 +1,10 @@
 package no.itszipzon.repo;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import no.itszipzon.dto.QuizDto;
 import no.itszipzon.tables.QuizAttempt;
 import org.springframework.data.domain.Pageable;
@@ -24,18 +26,33 @@ public interface QuizAttemptRepo extends JpaRepository<QuizAttempt, Long> {
       """)
   Optional<List<QuizDto>> findQuizzesFromUserHistory(String username, Pageable pageable);
 
+  /**
+   * Finds the attempts of a user taken before a position, newest first. Pass null as the
+   * position to start from the newest attempt. Only the first page of the pageable is used as
+   * the limit, so the query seeks through the index on (userId, takenAt, quizAttemptId).
+   *
+   * @param username  The username of the user.
+   * @param takenAt   When the last attempt seen was taken, or null.
+   * @param attemptId The ID of the last attempt seen.
+   * @param pageable  The limit.
+   * @return The quizzes, with when and by which attempt they were taken.
+   */
   @Query("""
-        SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
-                                       u.username, u.profilePicture, q.createdAt)
+      SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
+                                         u.username, u.profilePicture, q.createdAt, qa.expEarned,
+                                         qa.takenAt, qa.quizAttemptId)
       FROM QuizAttempt qa
-      JOIN qa.user qau
-      JOIN qa.quiz q
-      JOIN q.user u
-      GROUP BY q.quizId, u.username, u.profilePicture, q.title, q.description,
-       q.thumbnail, q.timer, q.createdAt
-      ORDER BY COUNT(q.quizId) DESC
-        """)
-  Optional<List<QuizDto>> findTopPopularQuizzes(Pageable page);
+        JOIN qa.user qau
+        JOIN qa.quiz q
+        JOIN q.user u
+      WHERE qau.username = :username
+        AND (:takenAt IS NULL
+          OR qa.takenAt < :takenAt
+          OR (qa.takenAt = :takenAt AND qa.quizAttemptId < :attemptId))
+      ORDER BY qa.takenAt DESC, qa.quizAttemptId DESC
+      """)
+  List<QuizDto> findQuizzesFromUserHistoryBefore(String username, LocalDateTime takenAt,
+      Long attemptId, Pageable pageable);
 
   @Query("""
           SELECT COUNT(qa)
@@ -48,4 +65,27 @@ public interface QuizAttemptRepo extends JpaRepository<QuizAttempt, Long> {
       """)
   int countAttemptLastMonth(String username, Long quizId, LocalDateTime startOfRange,
       LocalDateTime endOfRange);
+
+  @Query("""
+          SELECT qau.userId, COUNT(qa)
+          FROM QuizAttempt qa
+          JOIN qa.user qau
+          JOIN qa.quiz q
+          WHERE qau.userId IN :userIds
+            AND q.quizId = :quizId
+            AND qa.takenAt BETWEEN :startOfRange AND :endOfRange
+          GROUP BY qau.userId
+      """)
+  List<Object[]> countAttemptsPerUser(Collection<Long> userIds, Long quizId,
+      LocalDateTime startOfRange, LocalDateTime endOfRange);
+
+  /**
+   * Streams the quiz and the time of every attempt taken since a point in time. Must be consumed
+   * inside a transaction and closed.
+   *
+   * @param since The earliest time.
+   * @return The quiz ID and the time of each attempt.
+   */
+  @Query("SELECT qa.quiz.quizId, qa.takenAt FROM QuizAttempt qa WHERE qa.takenAt >= :since")
+  Stream<Object[]> streamAttemptsSince(LocalDateTime since);
 }
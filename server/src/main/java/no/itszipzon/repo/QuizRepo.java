@@ -1,23 +1,25 @@
 package no.itszipzon.repo;
 
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import no.itszipzon.dto.QuizDto;
 import no.itszipzon.tables.Quiz;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 /**
  * QuizRepo.
  */
 public interface QuizRepo extends JpaRepository<Quiz, Long> {
-  @SuppressWarnings("null")
-  @EntityGraph(attributePaths = { "quizQuestions" })
-  List<Quiz> findAll();
-
   @Query("""
       SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
                                            u.username, u.profilePicture, q.createdAt)
@@ -33,6 +35,23 @@ public interface QuizRepo extends JpaRepository<Quiz, Long> {
       """)
   List<QuizDto> findAllQuizzesSummary();
 
+  /**
+   * Streams the summary of every quiz. The whole catalog is never held in memory: a fetch size
+   * of Integer.MIN_VALUE makes MySQL Connector/J stream the rows one by one for this statement
+   * only, without a server side cursor for every connection. Nothing else can run on the
+   * connection until the stream is closed, so it must be consumed inside its own transaction
+   * and closed.
+   *
+   * @return The quiz summaries.
+   */
+  @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"))
+  @Query("""
+      SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
+                                           u.username, u.profilePicture, q.createdAt)
+      FROM Quiz q JOIN q.user u
+      """)
+  Stream<QuizDto> streamAllQuizzesSummary();
+
   @Query("""
       SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
                                            u.username, u.profilePicture, q.createdAt, u.userId)
@@ -80,6 +99,114 @@ public interface QuizRepo extends JpaRepository<Quiz, Long> {
       """)
   Optional<List<QuizDto>> findQuizzesByCategory(String category, Pageable pageable);
 
+  /**
+   * Finds the quizzes created before a position, newest first. Pass null as the position to
+   * start from the newest quiz. Only the first page of the pageable is used as the limit, so
+   * the query seeks through the index on (createdAt, quizId) instead of skipping rows.
+   *
+   * @param createdAt The creation time of the last quiz seen, or null.
+   * @param quizId    The ID of the last quiz seen.
+   * @param pageable  The limit.
+   * @return The quizzes.
+   */
+  @Query("""
+      SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
+                                           u.username, u.profilePicture, q.createdAt)
+      FROM Quiz q JOIN q.user u
+      WHERE :createdAt IS NULL
+        OR q.createdAt < :createdAt
+        OR (q.createdAt = :createdAt AND q.quizId < :quizId)
+      ORDER BY q.createdAt DESC, q.quizId DESC
+      """)
+  List<QuizDto> findQuizzesBefore(LocalDateTime createdAt, Long quizId, Pageable pageable);
+
+  /**
+   * Finds the quizzes of a user created before a position, newest first.
+   *
+   * @param username  The username of the user.
+   * @param createdAt The creation time of the last quiz seen, or null.
+   * @param quizId    The ID of the last quiz seen.
+   * @param pageable  The limit.
+   * @return The quizzes.
+   * @see #findQuizzesBefore(LocalDateTime, Long, Pageable)
+   */
+  @Query("""
+      SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
+                                           u.username, u.profilePicture, q.createdAt)
+      FROM Quiz q JOIN q.user u
+      WHERE u.username = :username
+        AND (:createdAt IS NULL
+          OR q.createdAt < :createdAt
+          OR (q.createdAt = :createdAt AND q.quizId < :quizId))
+      ORDER BY q.createdAt DESC, q.quizId DESC
+      """)
+  List<QuizDto> findUsersQuizzesBefore(String username, LocalDateTime createdAt, Long quizId,
+      Pageable pageable);
+
+  /**
+   * Finds the quizzes in a category created before a position, newest first.
+   *
+   * @param category  The name of the category.
+   * @param createdAt The creation time of the last quiz seen, or null.
+   * @param quizId    The ID of the last quiz seen.
+   * @param pageable  The limit.
+   * @return The quizzes.
+   * @see #findQuizzesBefore(LocalDateTime, Long, Pageable)
+   */
+  @Query("""
+      SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
+                                           u.username, u.profilePicture, q.createdAt)
+      FROM Quiz q
+        JOIN q.user u
+        JOIN q.categories qc
+      WHERE qc.category.name = :category
+        AND (:createdAt IS NULL
+          OR q.createdAt < :createdAt
+          OR (q.createdAt = :createdAt AND q.quizId < :quizId))
+      ORDER BY q.createdAt DESC, q.quizId DESC
+      """)
+  List<QuizDto> findQuizzesByCategoryBefore(String category, LocalDateTime createdAt,
+      Long quizId, Pageable pageable);
+
+  @Query("""
+      SELECT new no.itszipzon.dto.QuizDto(q.quizId, q.title, q.description, q.thumbnail, q.timer,
+                                           u.username, u.profilePicture, q.createdAt)
+      FROM Quiz q JOIN q.user u
+      WHERE q.quizId IN :ids
+      """)
+  List<QuizDto> findQuizSummariesByIds(Collection<Long> ids);
+
+  /**
+   * Adds to the number of attempts of a quiz in the database, without reading it first, so
+   * concurrent games cannot lose each other's attempts. Must run inside a transaction.
+   *
+   * @param quizId The ID of the quiz.
+   * @param count  The number of new attempts.
+   * @return The number of updated quizzes.
+   */
+  @Modifying
+  @Query("UPDATE Quiz q SET q.attemptCount = q.attemptCount + :count WHERE q.quizId = :quizId")
+  int incrementAttemptCount(Long quizId, long count);
+
+  @Query("SELECT q.quizId, q.attemptCount FROM Quiz q WHERE q.attemptCount > 0")
+  List<Object[]> findAttemptCounts();
+
+  @Query("SELECT COALESCE(SUM(q.attemptCount), 0) FROM Quiz q")
+  long sumAttemptCounts();
+
+  /**
+   * Recounts the attempts of every quiz from the attempt table. Only used to fill in the
+   * counters of a database that was created before they existed.
+   *
+   * @return The number of updated quizzes.
+   */
+  @Modifying
+  @Query("""
+      UPDATE Quiz q
+      SET q.attemptCount = (SELECT COUNT(qa) FROM QuizAttempt qa WHERE qa.quiz = q)
+      """)
+  int recountAttempts();
+
   @Query("SELECT COUNT(q) FROM Quiz q WHERE :category MEMBER OF q.categories")
   int countQuizzesInCategory(@Param("category") String category);
 
@@ -0,0 +1,60 @@
+package no.itszipzon.repo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import no.itszipzon.tables.QuizSessionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository interface for the QuizSessionLease table.
+ */
+public interface QuizSessionLeaseRepo extends JpaRepository<QuizSessionLease, String> {
+
+  @Modifying
+  @Query("""
+      UPDATE QuizSessionLease l
+      SET l.nodeId = :nodeId, l.nodeUrl = :nodeUrl, l.leaseExpiresAt = :expiresAt
+      WHERE l.token = :token AND l.leaseExpiresAt < :now
+      """)
+  int takeOverExpired(@Param("token") String token, @Param("nodeId") String nodeId,
+      @Param("nodeUrl") String nodeUrl, @Param("expiresAt") LocalDateTime expiresAt,
+      @Param("now") LocalDateTime now);
+
+  /**
+   * Writes the compact state of a session, if this node still holds its lease. A node that
+   * stalled past its lease must not overwrite the lease of the node that took over, nor bring
+   * back a lease that was deleted.
+   *
+   * @return 1 if the lease was written, 0 if this node no longer holds it.
+   */
+  @Modifying
+  @Query("""
+      UPDATE QuizSessionLease l
+      SET l.leaseExpiresAt = :expiresAt, l.quizId = :quizId, l.leaderUsername = :leaderUsername,
+          l.state = :state, l.started = :started, l.players = :players
+      WHERE l.token = :token AND l.nodeId = :nodeId
+      """)
+  int writeState(@Param("token") String token, @Param("nodeId") String nodeId,
+      @Param("expiresAt") LocalDateTime expiresAt, @Param("quizId") long quizId,
+      @Param("leaderUsername") String leaderUsername, @Param("state") String state,
+      @Param("started") boolean started, @Param("players") int players);
+
+  @Modifying
+  @Query("UPDATE QuizSessionLease l SET l.leaseExpiresAt = :expiresAt WHERE l.nodeId = :nodeId")
+  int renewLeases(@Param("nodeId") String nodeId, @Param("expiresAt") LocalDateTime expiresAt);
+
+  @Modifying
+  @Query("DELETE FROM QuizSessionLease l WHERE l.nodeId = :nodeId AND l.token IN :tokens")
+  int release(@Param("nodeId") String nodeId, @Param("tokens") Collection<String> tokens);
+
+  @Modifying
+  @Query("DELETE FROM QuizSessionLease l WHERE l.nodeId = :nodeId")
+  int releaseAll(@Param("nodeId") String nodeId);
+
+  @Modifying
+  @Query("DELETE FROM QuizSessionLease l WHERE l.leaseExpiresAt < :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
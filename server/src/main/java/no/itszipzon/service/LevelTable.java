@@ -0,0 +1,93 @@
+package no.itszipzon.service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import no.itszipzon.repo.LevelRepo;
+import no.itszipzon.tables.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * An in-memory copy of the level table.
+ *
+ * <p>Holds the total xp needed to reach each level as a prefix sum, so resolving an amount of xp
+ * to a level is a binary search instead of one query per level. It is loaded on startup and
+ * must be refreshed whenever the level table changes.
+ */
+@Service
+public class LevelTable {
+
+  private volatile long[] thresholds = new long[1];
+
+  @Autowired
+  private LevelRepo levelRepo;
+
+  /**
+   * Loads the levels from the database. Levels must follow each other from level 1; the chain
+   * stops at the first missing level, like it did when levels were looked up one at a time.
+   */
+  @PostConstruct
+  public void refresh() {
+    load(levelRepo.findAll());
+  }
+
+  void load(List<Level> rows) {
+    List<Level> levels = new ArrayList<>(rows);
+    levels.sort(Comparator.comparingInt(Level::getLevel));
+    long[] prefix = new long[levels.size() + 1];
+    int maxLevel = 0;
+    for (Level level : levels) {
+      if (level.getLevel() == maxLevel + 1) {
+        maxLevel++;
+        prefix[maxLevel] = prefix[maxLevel - 1] + level.getXp();
+      }
+    }
+    thresholds = Arrays.copyOf(prefix, maxLevel + 1);
+  }
+
+  public int getMaxLevel() {
+    return thresholds.length - 1;
+  }
+
+  /**
+   * Gets the xp needed to go from a level to the next one.
+   *
+   * @param level The current level.
+   * @return The xp needed, or -1 if the level is the highest one.
+   */
+  public int getXpToNextLevel(int level) {
+    long[] prefix = thresholds;
+    if (level < 0 || level + 1 >= prefix.length) {
+      return -1;
+    }
+    return (int) (prefix[level + 1] - prefix[level]);
+  }
+
+  /**
+   * Resolves the level and the xp into that level after gaining xp. At the highest level the xp
+   * is always 0.
+   *
+   * @param level    The current level.
+   * @param xp       The current xp into the level.
+   * @param xpGained The xp gained.
+   * @return The new level at index 0 and the new xp into that level at index 1.
+   */
+  public int[] resolve(int level, int xp, int xpGained) {
+    long[] prefix = thresholds;
+    int maxLevel = prefix.length - 1;
+    if (level >= maxLevel) {
+      return new int[] {level, 0};
+    }
+    long total = prefix[Math.max(0, level)] + xp + xpGained;
+    if (total >= prefix[maxLevel]) {
+      return new int[] {maxLevel, 0};
+    }
+    int index = Arrays.binarySearch(prefix, total);
+    int newLevel = index >= 0 ? index : -index - 2;
+    newLevel = Math.max(newLevel, level);
+    return new int[] {newLevel, (int) (total - prefix[newLevel])};
+  }
+}
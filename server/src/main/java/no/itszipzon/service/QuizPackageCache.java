@@ -0,0 +1,119 @@
+package no.itszipzon.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import no.itszipzon.DtoParser;
+import no.itszipzon.dto.QuizOptionDto;
+import no.itszipzon.dto.QuizQuestionDto;
+import no.itszipzon.dto.QuizWithQuestionsDto;
+import no.itszipzon.repo.QuizRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A read-through cache of quizzes with their questions and options, the package a quiz is played
+ * from.
+ *
+ * <p>Quizzes cannot be edited after they are created, only deleted, so a package stays valid
+ * until its quiz is deleted. The cache is bounded by the estimated size of the packages and
+ * evicts with W-TinyLFU, so one-off quizzes do not push out the popular ones. Concurrent misses
+ * for the same quiz wait for a single load. Callers get their own copy of a package, since
+ * sessions shuffle the options and change the timer of the quiz they play.
+ */
+@Service
+public class QuizPackageCache {
+
+  private static final int OBJECT_BYTES = 64;
+
+  private Cache<Long, QuizWithQuestionsDto> packages;
+
+  @Autowired
+  private QuizRepo quizRepo;
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Value("${quiz.cache.max-bytes:67108864}")
+  private long maxBytes;
+
+  /**
+   * Builds the cache and registers its metrics.
+   */
+  @PostConstruct
+  public void init() {
+    packages = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((Long id, QuizWithQuestionsDto quiz) -> weigh(quiz))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, packages, "quizPackages");
+  }
+
+  /**
+   * Gets a copy of the package of a quiz, loading it on a miss.
+   *
+   * @param quizId The ID of the quiz.
+   * @return The package, or empty if the quiz does not exist.
+   */
+  public Optional<QuizWithQuestionsDto> get(long quizId) {
+    QuizWithQuestionsDto quiz = packages.get(quizId, id -> quizRepo.findById(id)
+        .map(DtoParser::mapToQuizWithQuestionsDto)
+        .orElse(null));
+    return Optional.ofNullable(quiz).map(QuizPackageCache::copy);
+  }
+
+  /**
+   * Drops the package of a deleted quiz. Inside a transaction the package is dropped again once
+   * the transaction commits, so a load that raced the delete cannot keep it cached.
+   *
+   * @param quizId The ID of the quiz.
+   */
+  public void invalidate(long quizId) {
+    packages.invalidate(quizId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          packages.invalidate(quizId);
+        }
+      });
+    }
+  }
+
+  private static int weigh(QuizWithQuestionsDto quiz) {
+    long bytes = OBJECT_BYTES + 2L * (length(quiz.getTitle()) + length(quiz.getDescription())
+        + length(quiz.getThumbnail()) + length(quiz.getUsername()));
+    for (QuizQuestionDto question : quiz.getQuizQuestions()) {
+      bytes += OBJECT_BYTES + 2L * length(question.getQuestion());
+      for (QuizOptionDto option : question.getQuizOptions()) {
+        bytes += OBJECT_BYTES + 2L * length(option.getOption());
+      }
+    }
+    return (int) Math.min(Integer.MAX_VALUE, bytes);
+  }
+
+  private static int length(String text) {
+    return text == null ? 0 : text.length();
+  }
+
+  private static QuizWithQuestionsDto copy(QuizWithQuestionsDto quiz) {
+    List<QuizQuestionDto> questions = new ArrayList<>(quiz.getQuizQuestions().size());
+    for (QuizQuestionDto question : quiz.getQuizQuestions()) {
+      List<QuizOptionDto> options = new ArrayList<>(question.getQuizOptions().size());
+      for (QuizOptionDto option : question.getQuizOptions()) {
+        options.add(new QuizOptionDto(option.getId(), option.getOption(), option.isCorrect()));
+      }
+      questions.add(new QuizQuestionDto(question.getId(), question.getQuestion(), options));
+    }
+    return new QuizWithQuestionsDto(quiz.getId(), quiz.getTitle(), quiz.getDescription(),
+        quiz.getThumbnail(), quiz.getTimer(), quiz.getCreatedAt(), questions,
+        quiz.getUsername());
+  }
+}
@@ -0,0 +1,170 @@
+package no.itszipzon.service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import no.itszipzon.Logger;
+import no.itszipzon.RankedTree;
+import no.itszipzon.repo.QuizAttemptRepo;
+import no.itszipzon.repo.QuizRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The quizzes ranked by how many times they have been played.
+ *
+ * <p>Every quiz keeps its number of attempts in the database, incremented in the same transaction
+ * that saves the attempts. The ranking is kept in memory in a {@link RankedTree}, so a page of
+ * the most popular quizzes is read in O(log n + page size) without aggregating the attempt table.
+ * The memory copy is updated once a transaction commits, and reloaded from the counters on a
+ * schedule, so it catches up with the attempts saved by other nodes.
+ */
+@Service
+public class QuizPopularity {
+
+  private static final Comparator<Entry> ORDER = Comparator
+      .comparingLong((Entry entry) -> entry.attempts).reversed()
+      .thenComparingLong(entry -> entry.quizId);
+
+  private final RankedTree<Entry> tree = new RankedTree<>(ORDER);
+  private final Map<Long, Entry> entries = new HashMap<>();
+
+  @Autowired
+  private QuizRepo quizRepo;
+  @Autowired
+  private QuizAttemptRepo quizAttemptRepo;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private QuizTrending quizTrending;
+
+  /**
+   * Fills in the counters if the database predates them, and loads the ranking.
+   */
+  @PostConstruct
+  public void init() {
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        if (quizRepo.sumAttemptCounts() != quizAttemptRepo.count()) {
+          Logger.info("Recounted the attempts of " + quizRepo.recountAttempts() + " quizzes");
+        }
+      });
+      reload();
+    } catch (Exception e) {
+      Logger.error("Could not load the quiz popularity: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Reloads the ranking from the counters in the database.
+   */
+  @Scheduled(fixedDelayString = "${quiz.popular.refresh-ms:300000}",
+      initialDelayString = "${quiz.popular.refresh-ms:300000}")
+  public void reload() {
+    load(quizRepo.findAttemptCounts());
+  }
+
+  synchronized void load(List<Object[]> counts) {
+    tree.clear();
+    entries.clear();
+    for (Object[] row : counts) {
+      set((Long) row[0], ((Number) row[1]).longValue());
+    }
+  }
+
+  /**
+   * Counts new attempts of a quiz. Must be called inside the transaction that saves the attempts;
+   * the ranking and the trending counts move once it commits.
+   *
+   * @param quizId The ID of the quiz.
+   * @param count  The number of new attempts.
+   */
+  public void recordAttempts(long quizId, int count) {
+    quizRepo.incrementAttemptCount(quizId, count);
+    afterCommit(() -> {
+      add(quizId, count);
+      quizTrending.record(quizId, count);
+    });
+  }
+
+  /**
+   * Drops a deleted quiz from the ranking and the trending counts once the transaction deleting
+   * it commits.
+   *
+   * @param quizId The ID of the quiz.
+   */
+  public void remove(long quizId) {
+    afterCommit(() -> {
+      synchronized (this) {
+        set(quizId, 0);
+      }
+      quizTrending.remove(quizId);
+    });
+  }
+
+  /**
+   * Gets a page of the most played quizzes.
+   *
+   * @param page The zero-based page.
+   * @param size The number of quizzes per page.
+   * @return The IDs of the quizzes, most played first, or an empty list if the page is past the
+   *         end or not a valid page.
+   */
+  public synchronized List<Long> getPage(int page, int size) {
+    long from = (long) page * size;
+    if (page < 0 || size <= 0 || from >= tree.size()) {
+      return new ArrayList<>();
+    }
+    List<Long> quizIds = new ArrayList<>(Math.min(size, tree.size() - (int) from));
+    for (Entry entry : tree.range((int) from, size)) {
+      quizIds.add(entry.quizId);
+    }
+    return quizIds;
+  }
+
+  private synchronized void add(long quizId, int count) {
+    Entry entry = entries.get(quizId);
+    set(quizId, (entry == null ? 0 : entry.attempts) + count);
+  }
+
+  private void set(long quizId, long attempts) {
+    Entry previous = attempts > 0 ? entries.put(quizId, new Entry(quizId, attempts))
+        : entries.remove(quizId);
+    if (previous != null) {
+      tree.remove(previous);
+    }
+    if (attempts > 0) {
+      tree.insert(entries.get(quizId));
+    }
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  private static final class Entry {
+    private final long quizId;
+    private final long attempts;
+
+    private Entry(long quizId, long attempts) {
+      this.quizId = quizId;
+      this.attempts = attempts;
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package no.itszipzon.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.Logger;
+import no.itszipzon.Tools;
+import no.itszipzon.repo.QuizAttemptRepo;
+import no.itszipzon.repo.QuizRepo;
+import no.itszipzon.repo.QuizSessionRepo;
+import no.itszipzon.repo.UserRepo;
+import no.itszipzon.socket.quiz.QuizResult;
+import no.itszipzon.tables.Quiz;
+import no.itszipzon.tables.QuizAnswer;
+import no.itszipzon.tables.QuizAttempt;
+import no.itszipzon.tables.QuizSessionManagerTable;
+import no.itszipzon.tables.QuizSessionTable;
+import no.itszipzon.tables.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service that stores the results of finished multiplayer quizzes.
+ *
+ * <p>Results are written on a dedicated thread, in one transaction per game, so the socket
+ * threads never wait on the database when a game ends. The attempts, answers and session rows
+ * use IDENTITY keys, which Hibernate inserts one row at a time, so they are inserted with JDBC
+ * batches instead, in the same transaction.
+ */
+@Service
+public class QuizResultService {
+  private static final int OWNER_XP_PER_PLAYER = 250;
+
+  private static final int[] ID_TYPES = {Types.BIGINT, Types.BIGINT, Types.BIGINT};
+
+  private final ExecutorService executor;
+  private String insertAttemptSql;
+  private String insertAnswerSql;
+  private String insertSessionSql;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private QuizRepo quizRepo;
+  @Autowired
+  private QuizAttemptRepo quizAttemptRepo;
+  @Autowired
+  private QuizSessionRepo quizSessionRepo;
+  @Autowired
+  private UserRepo userRepo;
+  @Autowired
+  private UserService userService;
+  @Autowired
+  private QuizPopularity quizPopularity;
+
+  /**
+   * Constructor for the quiz result service.
+   */
+  public QuizResultService() {
+    executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "quiz-results");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Builds the insert statements for the rows of a result from the entity mappings.
+   */
+  @PostConstruct
+  public void init() {
+    MappingMetamodel metamodel = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getMappingMetamodel();
+    insertAttemptSql = insertSql(
+        (AbstractEntityPersister) metamodel.getEntityDescriptor(QuizAttempt.class),
+        "expEarned", "user", "quiz", "takenAt");
+    insertAnswerSql = insertSql(
+        (AbstractEntityPersister) metamodel.getEntityDescriptor(QuizAnswer.class),
+        "quizOption", "quizQuestion", "quizAttempt");
+    insertSessionSql = insertSql(
+        (AbstractEntityPersister) metamodel.getEntityDescriptor(QuizSessionTable.class),
+        "user", "quizManager", "quizAttempt");
+  }
+
+  /**
+   * Waits for the results that are already queued before the application stops.
+   *
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      Logger.error("Quiz results were still being saved at shutdown");
+    }
+  }
+
+  /**
+   * Queues the result of a finished quiz to be saved.
+   *
+   * @param result The result.
+   * @return A future that completes when the result is saved.
+   */
+  public CompletableFuture<Void> save(QuizResult result) {
+    return CompletableFuture
+        .runAsync(() -> transactionTemplate.executeWithoutResult(status -> persist(result)),
+            executor)
+        .exceptionally(e -> {
+          Logger.error("Could not save quiz result for quiz " + result.getQuizId() + ": "
+              + e.getMessage());
+          return null;
+        });
+  }
+
+  private void persist(QuizResult result) {
+    Quiz quiz = quizRepo.getReferenceById(result.getQuizId());
+    User quizOwner = userRepo.findUserByUsername(result.getOwnerUsername())
+        .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+    List<Long> userIds = new ArrayList<>();
+    for (QuizResult.PlayerResult player : result.getPlayers()) {
+      userIds.add(player.getId());
+    }
+    Map<Long, User> users = new HashMap<>();
+    for (User user : userRepo.findAllById(userIds)) {
+      users.put(user.getId(), user);
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    Map<Long, Integer> tries = new HashMap<>();
+    for (Object[] row : quizAttemptRepo.countAttemptsPerUser(userIds, result.getQuizId(),
+        now.minusMonths(1), now)) {
+      tries.put((Long) row[0], ((Number) row[1]).intValue());
+    }
+
+    List<Object[]> attempts = new ArrayList<>();
+    int ownerXp = 0;
+    for (QuizResult.PlayerResult player : result.getPlayers()) {
+      User user = users.get(player.getId());
+      if (user == null) {
+        throw new EntityNotFoundException("User not found");
+      }
+      int xp = Tools.calculateXp(
+          player.getScore(),
+          result.getAmountOfQuestions(),
+          player.getAmountOfCorrectAnswers(),
+          tries.getOrDefault(user.getId(), 0));
+      attempts.add(new Object[] {xp, user.getId(), result.getQuizId(), Timestamp.valueOf(now)});
+
+      if (!user.getUsername().equalsIgnoreCase(quizOwner.getUsername())) {
+        userService.addXp(user, xp);
+        ownerXp += OWNER_XP_PER_PLAYER;
+      }
+    }
+
+    QuizSessionManagerTable quizSessionManagerTable = new QuizSessionManagerTable();
+    quizSessionManagerTable.setQuiz(quiz);
+    quizSessionRepo.save(quizSessionManagerTable);
+
+    List<Long> attemptIds = insertAttempts(attempts);
+    List<Object[]> answers = new ArrayList<>();
+    List<Object[]> sessions = new ArrayList<>();
+    for (int index = 0; index < result.getPlayers().size(); index++) {
+      QuizResult.PlayerResult player = result.getPlayers().get(index);
+      for (int i = 0; i < result.getQuestionIds().size(); i++) {
+        answers.add(new Object[] {player.getOptionIds().get(i), result.getQuestionIds().get(i),
+            attemptIds.get(index)});
+      }
+      sessions.add(new Object[] {player.getId(), quizSessionManagerTable.getQuizSessionManagerId(),
+          attemptIds.get(index)});
+    }
+    jdbcTemplate.batchUpdate(insertAnswerSql, answers, ID_TYPES);
+    jdbcTemplate.batchUpdate(insertSessionSql, sessions, ID_TYPES);
+
+    quizPopularity.recordAttempts(result.getQuizId(), attempts.size());
+    if (ownerXp > 0) {
+      userService.addXp(quizOwner, ownerXp);
+    }
+  }
+
+  /**
+   * Inserts the attempts in one batch.
+   *
+   * @param attempts The XP earned, user ID, quiz ID and time of each attempt.
+   * @return The generated IDs, in the order of the attempts.
+   */
+  private List<Long> insertAttempts(List<Object[]> attempts) {
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        connection -> connection.prepareStatement(insertAttemptSql,
+            Statement.RETURN_GENERATED_KEYS),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement statement, int i) throws SQLException {
+            Object[] attempt = attempts.get(i);
+            for (int column = 0; column < attempt.length; column++) {
+              statement.setObject(column + 1, attempt[column]);
+            }
+          }
+
+          @Override
+          public int getBatchSize() {
+            return attempts.size();
+          }
+        },
+        keyHolder);
+    List<Long> ids = new ArrayList<>(attempts.size());
+    for (Map<String, Object> keys : keyHolder.getKeyList()) {
+      ids.add(((Number) keys.values().iterator().next()).longValue());
+    }
+    if (ids.size() != attempts.size()) {
+      throw new IllegalStateException("Expected " + attempts.size() + " attempt IDs, got "
+          + ids.size());
+    }
+    return ids;
+  }
+
+  /**
+   * Builds an insert statement for an entity from its mapping, so the statement uses the same
+   * table and column names as Hibernate.
+   */
+  private static String insertSql(AbstractEntityPersister persister, String... properties) {
+    StringJoiner columns = new StringJoiner(", ");
+    StringJoiner values = new StringJoiner(", ");
+    for (String property : properties) {
+      columns.add(persister.getPropertyColumnNames(property)[0]);
+      values.add("?");
+    }
+    return "INSERT INTO " + persister.getIdentifierTableName() + " (" + columns + ") VALUES ("
+        + values + ")";
+  }
+}
@@ -0,0 +1,231 @@
+package no.itszipzon.service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+import no.itszipzon.Logger;
+import no.itszipzon.dto.QuizDto;
+import no.itszipzon.repo.QuizAttemptRepo;
+import no.itszipzon.repo.QuizRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The quizzes played the most lately.
+ *
+ * <p>Every quiz played in the last day has a ring of hourly buckets with its number of attempts.
+ * Attempts are counted with a compare-and-set on the bucket of the current hour, so games ending
+ * at the same time never wait on each other. A bucket still holding an older hour is reset by the
+ * first attempt that reaches it. The score of a quiz is the sum of its buckets, each weighted down
+ * by half for every half-life it is old, so a quiz that was played a lot yesterday drops below
+ * one that is being played now.
+ *
+ * <p>The trending list is ranked on a schedule, and served from memory in between. The counts
+ * are seeded from the attempts of the last day on startup; after that each node only counts the
+ * attempts it saves itself.
+ */
+@Service
+public class QuizTrending {
+
+  private static final int BUCKETS = 24;
+  private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private final Map<Long, Buckets> counters = new ConcurrentHashMap<>();
+  private final double[] weights = new double[BUCKETS];
+  private volatile List<QuizDto> trending = List.of();
+
+  @Autowired
+  private QuizRepo quizRepo;
+  @Autowired
+  private QuizAttemptRepo quizAttemptRepo;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Value("${quiz.trending.half-life-hours:6}")
+  private double halfLifeHours;
+  @Value("${quiz.trending.size:20}")
+  private int size;
+
+  /**
+   * Seeds the buckets with the attempts of the last day and ranks the quizzes.
+   */
+  @PostConstruct
+  public void init() {
+    configure(halfLifeHours, size);
+    try {
+      long hour = currentHour();
+      LocalDateTime since = LocalDateTime.now().minusHours(BUCKETS);
+      transactionTemplate.executeWithoutResult(status -> {
+        try (Stream<Object[]> attempts = quizAttemptRepo.streamAttemptsSince(since)) {
+          attempts.forEach(row -> {
+            long takenHour = toHour((LocalDateTime) row[1]);
+            if (takenHour > hour - BUCKETS && takenHour <= hour) {
+              record((Long) row[0], takenHour, 1);
+            }
+          });
+        }
+      });
+      refresh();
+    } catch (Exception e) {
+      Logger.error("Could not load the trending quizzes: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Counts new attempts of a quiz in the current hour.
+   *
+   * @param quizId The ID of the quiz.
+   * @param count  The number of new attempts.
+   */
+  public void record(long quizId, int count) {
+    record(quizId, currentHour(), count);
+  }
+
+  /**
+   * Forgets a deleted quiz. It disappears from the trending list at the next refresh.
+   *
+   * @param quizId The ID of the quiz.
+   */
+  public void remove(long quizId) {
+    counters.remove(quizId);
+  }
+
+  /**
+   * Ranks the quizzes by their decayed score and keeps the best ones. Quizzes without attempts
+   * in the last day are dropped. An attempt racing the drop of its quiz can be lost, which a
+   * quiz nobody played for a day can afford.
+   */
+  @Scheduled(fixedDelayString = "${quiz.trending.refresh-ms:60000}",
+      initialDelayString = "${quiz.trending.refresh-ms:60000}")
+  public void refresh() {
+    List<Long> quizIds = rank(currentHour());
+    if (quizIds.isEmpty()) {
+      trending = List.of();
+      return;
+    }
+    Map<Long, QuizDto> summaries = new HashMap<>();
+    for (QuizDto summary : quizRepo.findQuizSummariesByIds(quizIds)) {
+      summaries.put(summary.getId(), summary);
+    }
+    List<QuizDto> ranked = new ArrayList<>(quizIds.size());
+    for (Long quizId : quizIds) {
+      if (summaries.containsKey(quizId)) {
+        ranked.add(summaries.get(quizId));
+      }
+    }
+    trending = List.copyOf(ranked);
+  }
+
+  /**
+   * Gets the trending quizzes as of the last refresh.
+   *
+   * @return The quizzes, most trending first.
+   */
+  public List<QuizDto> getTrending() {
+    return trending;
+  }
+
+  void configure(double halfLifeHours, int size) {
+    this.halfLifeHours = halfLifeHours;
+    this.size = size;
+    for (int age = 0; age < BUCKETS; age++) {
+      weights[age] = Math.pow(0.5, age / halfLifeHours);
+    }
+  }
+
+  void record(long quizId, long hour, int count) {
+    counters.computeIfAbsent(quizId, id -> new Buckets()).add(hour, count);
+  }
+
+  List<Long> rank(long hour) {
+    PriorityQueue<Score> best =
+        new PriorityQueue<>(Comparator.comparingDouble(score -> score.value));
+    counters.entrySet().removeIf(entry -> {
+      double value = entry.getValue().score(hour, weights);
+      if (value <= 0) {
+        return true;
+      }
+      best.add(new Score(entry.getKey(), value));
+      if (best.size() > size) {
+        best.poll();
+      }
+      return false;
+    });
+    List<Long> quizIds = new ArrayList<>(best.size());
+    while (!best.isEmpty()) {
+      quizIds.add(0, best.poll().quizId);
+    }
+    return quizIds;
+  }
+
+  Map<Long, Double> scores(long hour) {
+    Map<Long, Double> scores = new HashMap<>();
+    counters.forEach((quizId, buckets) -> scores.put(quizId, buckets.score(hour, weights)));
+    return scores;
+  }
+
+  private static long currentHour() {
+    return System.currentTimeMillis() / HOUR_MILLIS;
+  }
+
+  private static long toHour(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / HOUR_MILLIS;
+  }
+
+  private static final class Score {
+    private final long quizId;
+    private final double value;
+
+    private Score(long quizId, double value) {
+      this.quizId = quizId;
+      this.value = value;
+    }
+  }
+
+  /**
+   * A ring of hourly attempt counts. Each slot packs the hour it counts in the upper 32 bits
+   * and the count in the lower 32 bits, so the hour and the count change in one atomic step.
+   */
+  private static final class Buckets {
+    private final AtomicLongArray slots = new AtomicLongArray(BUCKETS);
+
+    private void add(long hour, int count) {
+      int index = (int) (hour % BUCKETS);
+      while (true) {
+        long slot = slots.get(index);
+        long slotHour = slot >>> 32;
+        if (slotHour > hour) {
+          return;
+        }
+        long next = slotHour == hour ? slot + count : hour << 32 | count;
+        if (slots.compareAndSet(index, slot, next)) {
+          return;
+        }
+      }
+    }
+
+    private double score(long hour, double[] weights) {
+      double score = 0;
+      for (int index = 0; index < BUCKETS; index++) {
+        long slot = slots.get(index);
+        long age = hour - (slot >>> 32);
+        if (age >= 0 && age < BUCKETS) {
+          score += (slot & 0xFFFFFFFFL) * weights[(int) age];
+        }
+      }
+      return score;
+    }
+  }
+}
@@ -1,9 +1,6 @@
 package no.itszipzon.service;
 
-import java.util.Optional;
-import no.itszipzon.repo.LevelRepo;
 import no.itszipzon.repo.UserRepo;
-import no.itszipzon.tables.Level;
 import no.itszipzon.tables.User;
 import org.springframework.stereotype.Service;
 
@@ -12,12 +9,12 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class UserService {
-  private LevelRepo levelRepo;
+  private LevelTable levelTable;
   private UserRepo userRepo;
 
-  public UserService(UserRepo userRepo, LevelRepo levelRepo) {
+  public UserService(UserRepo userRepo, LevelTable levelTable) {
     this.userRepo = userRepo;
-    this.levelRepo = levelRepo;
+    this.levelTable = levelTable;
   }
 
   /**
@@ -27,21 +24,9 @@ public class UserService {
    * @return the level of the user
    */
   public User addXp(User user, int xpGained) {
-    int newXp = user.getXp() + xpGained;
-    int currentLevel = user.getLevel();
-    while (true) {
-      Optional<Level> nextLevel = levelRepo.getLevel(currentLevel + 1);
-      if (nextLevel.isEmpty()) {
-        newXp = 0;
-        break;
-      } else if (newXp < nextLevel.get().getXp()) {
-        break;
-      }
-      newXp -= nextLevel.get().getXp();
-      currentLevel++;
-    }
-    user.setXp(newXp);
-    user.setLevel(currentLevel);
+    int[] level = levelTable.resolve(user.getLevel(), user.getXp(), xpGained);
+    user.setLevel(level[0]);
+    user.setXp(level[1]);
     return userRepo.save(user);
   }
 }
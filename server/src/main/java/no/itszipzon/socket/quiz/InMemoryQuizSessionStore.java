@@ -0,0 +1,53 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps quiz sessions in memory only. This is the default, for running a single node.
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.session.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryQuizSessionStore implements QuizSessionStore {
+
+  private final Map<String, QuizSession> quizSessions = new ConcurrentHashMap<>();
+
+  @Value("${quiz.node.id:local}")
+  private String nodeId;
+  @Value("${quiz.node.url:}")
+  private String nodeUrl;
+
+  @Override
+  public boolean putIfAbsent(String token, QuizSession quizSession) {
+    return quizSessions.putIfAbsent(token, quizSession) == null;
+  }
+
+  @Override
+  public QuizSession get(String token) {
+    return quizSessions.get(token);
+  }
+
+  @Override
+  public QuizSession remove(String token) {
+    return quizSessions.remove(token);
+  }
+
+  @Override
+  public Collection<QuizSession> values() {
+    return quizSessions.values();
+  }
+
+  @Override
+  public int size() {
+    return quizSessions.size();
+  }
+
+  @Override
+  public QuizSessionOwner findOwner(String token) {
+    return quizSessions.containsKey(token) ? new QuizSessionOwner(nodeId, nodeUrl, true) : null;
+  }
+}
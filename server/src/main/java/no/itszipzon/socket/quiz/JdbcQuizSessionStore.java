@@ -0,0 +1,196 @@
+package no.itszipzon.socket.quiz;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import no.itszipzon.Logger;
+import no.itszipzon.repo.QuizSessionLeaseRepo;
+import no.itszipzon.tables.QuizSessionLease;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the sessions of this node in memory, and a lease for each of them in the database.
+ *
+ * <p>The lease row records which node owns a token, until when, and a compact copy of the
+ * session state. Leases are renewed in bulk on a fixed delay; a node that stops renewing loses
+ * its tokens once the lease runs out. Released tokens are deleted on the next renewal, so
+ * removing a session never waits on the database.
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.session.store", havingValue = "jdbc")
+public class JdbcQuizSessionStore implements QuizSessionStore {
+
+  private final Map<String, QuizSession> quizSessions = new ConcurrentHashMap<>();
+  private final Map<String, String> writtenStates = new ConcurrentHashMap<>();
+  private final Queue<String> released = new ConcurrentLinkedQueue<>();
+
+  @Autowired
+  private QuizSessionLeaseRepo quizSessionLeaseRepo;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Value("${quiz.node.id:#{T(java.util.UUID).randomUUID().toString()}}")
+  private String nodeId;
+  @Value("${quiz.node.url:}")
+  private String nodeUrl;
+  @Value("${quiz.session.lease-seconds:30}")
+  private long leaseSeconds;
+
+  @Override
+  public boolean putIfAbsent(String token, QuizSession quizSession) {
+    if (quizSessions.containsKey(token)) {
+      return false;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime expiresAt = now.plusSeconds(leaseSeconds);
+    Boolean claimed;
+    try {
+      claimed = transactionTemplate.execute(status -> {
+        if (quizSessionLeaseRepo.existsById(token)) {
+          return quizSessionLeaseRepo.takeOverExpired(token, nodeId, nodeUrl, expiresAt, now) == 1;
+        }
+        quizSessionLeaseRepo.saveAndFlush(toLease(token, quizSession, expiresAt));
+        return true;
+      });
+    } catch (DataIntegrityViolationException e) {
+      return false;
+    }
+    if (!Boolean.TRUE.equals(claimed)) {
+      return false;
+    }
+    quizSessions.put(token, quizSession);
+    return true;
+  }
+
+  @Override
+  public QuizSession get(String token) {
+    return quizSessions.get(token);
+  }
+
+  @Override
+  public QuizSession remove(String token) {
+    QuizSession quizSession = quizSessions.remove(token);
+    if (quizSession != null) {
+      released.add(token);
+    }
+    return quizSession;
+  }
+
+  @Override
+  public Collection<QuizSession> values() {
+    return quizSessions.values();
+  }
+
+  @Override
+  public int size() {
+    return quizSessions.size();
+  }
+
+  @Override
+  public QuizSessionOwner findOwner(String token) {
+    if (quizSessions.containsKey(token)) {
+      return new QuizSessionOwner(nodeId, nodeUrl, true);
+    }
+    Optional<QuizSessionLease> lease = quizSessionLeaseRepo.findById(token);
+    if (lease.isEmpty() || lease.get().getLeaseExpiresAt().isBefore(LocalDateTime.now())) {
+      return null;
+    }
+    return new QuizSessionOwner(lease.get().getNodeId(), lease.get().getNodeUrl(),
+        lease.get().getNodeId().equals(nodeId));
+  }
+
+  /**
+   * Deletes released leases, renews the leases of this node and writes the compact state of the
+   * sessions that changed since the last renewal. The state is read outside the session
+   * mailboxes, so it may be a moment behind; it is only used for routing and monitoring.
+   *
+   * <p>The written state of a released token is dropped here rather than in {@link #remove},
+   * since a renewal that is already running could write it back after the removal. A removal
+   * racing a renewal is released by the next one.
+   *
+   * <p>The state is only written while the lease still names this node. If another node has
+   * taken the lease over, or it has been deleted, this node has stalled past it and the session
+   * is dropped, so each token keeps a single owner.
+   */
+  @Scheduled(fixedDelayString = "${quiz.session.lease-renew-ms:10000}")
+  public void renew() {
+    List<String> lost = new ArrayList<>();
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        List<String> tokens = new ArrayList<>();
+        String token;
+        while ((token = released.poll()) != null) {
+          tokens.add(token);
+          writtenStates.remove(token);
+        }
+        if (!tokens.isEmpty()) {
+          quizSessionLeaseRepo.release(nodeId, tokens);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(leaseSeconds);
+        quizSessionLeaseRepo.renewLeases(nodeId, expiresAt);
+        for (Map.Entry<String, QuizSession> entry : quizSessions.entrySet()) {
+          QuizSession quizSession = entry.getValue();
+          String state = quizSession.getQuizId() + "|" + quizSession.getState() + "|"
+              + quizSession.isStarted() + "|" + quizSession.getPlayers().size();
+          if (!state.equals(writtenStates.put(entry.getKey(), state))
+              && quizSessionLeaseRepo.writeState(entry.getKey(), nodeId, expiresAt,
+                  quizSession.getQuizId(), quizSession.getLeaderUsername(),
+                  quizSession.getState(), quizSession.isStarted(),
+                  quizSession.getPlayers().size()) == 0) {
+            lost.add(entry.getKey());
+          }
+        }
+        quizSessionLeaseRepo.deleteExpired(now);
+      });
+    } catch (Exception e) {
+      Logger.error("Could not renew quiz session leases: " + e.getMessage());
+      return;
+    }
+    for (String token : lost) {
+      quizSessions.remove(token);
+      writtenStates.remove(token);
+      Logger.warning("Dropped quiz session " + token + " after its lease was taken over");
+    }
+  }
+
+  /**
+   * Releases every lease of this node, so other nodes can reuse the tokens right away.
+   */
+  @PreDestroy
+  public void shutdown() {
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> quizSessionLeaseRepo.releaseAll(nodeId));
+    } catch (Exception e) {
+      Logger.error("Could not release quiz session leases: " + e.getMessage());
+    }
+  }
+
+  private QuizSessionLease toLease(String token, QuizSession quizSession,
+      LocalDateTime expiresAt) {
+    QuizSessionLease lease = new QuizSessionLease();
+    lease.setToken(token);
+    lease.setNodeId(nodeId);
+    lease.setNodeUrl(nodeUrl);
+    lease.setLeaseExpiresAt(expiresAt);
+    lease.setQuizId(quizSession.getQuizId());
+    lease.setLeaderUsername(quizSession.getLeaderUsername());
+    lease.setState(quizSession.getState());
+    lease.setStarted(quizSession.isStarted());
+    lease.setPlayers(quizSession.getPlayers().size());
+    return lease;
+  }
+}
@@ -0,0 +1,84 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import no.itszipzon.dto.QuizOptionDto;
+import no.itszipzon.dto.QuizQuestionDto;
+import no.itszipzon.dto.QuizWithQuestionsDto;
+
+/**
+ * An immutable answer key for a quiz in session.
+ *
+ * <p>Maps each question index to the sorted ids of its correct options. It is built once when a
+ * quiz is loaded into a session, so scoring never has to ask the database during play.
+ */
+public final class QuizAnswerKey {
+
+  private final long[][] correctOptionIds;
+  private final List<List<Long>> correctAnswers;
+
+  private QuizAnswerKey(long[][] correctOptionIds) {
+    this.correctOptionIds = correctOptionIds;
+    List<List<Long>> answers = new ArrayList<>(correctOptionIds.length);
+    for (long[] ids : correctOptionIds) {
+      List<Long> list = new ArrayList<>(ids.length);
+      for (long id : ids) {
+        list.add(id);
+      }
+      answers.add(Collections.unmodifiableList(list));
+    }
+    this.correctAnswers = Collections.unmodifiableList(answers);
+  }
+
+  /**
+   * Builds the answer key for a quiz.
+   *
+   * @param quiz The quiz with its questions and options.
+   * @return The answer key.
+   */
+  public static QuizAnswerKey of(QuizWithQuestionsDto quiz) {
+    List<QuizQuestionDto> questions = quiz.getQuizQuestions();
+    long[][] correctOptionIds = new long[questions.size()][];
+    for (int i = 0; i < questions.size(); i++) {
+      correctOptionIds[i] = questions.get(i).getQuizOptions().stream()
+          .filter(QuizOptionDto::isCorrect)
+          .mapToLong(QuizOptionDto::getId)
+          .sorted()
+          .toArray();
+    }
+    return new QuizAnswerKey(correctOptionIds);
+  }
+
+  /**
+   * Checks if an option is a correct answer to a question.
+   *
+   * @param questionIndex The index of the question.
+   * @param optionId      The id of the chosen option, or null if unanswered.
+   * @return true if the option is correct.
+   */
+  public boolean isCorrect(int questionIndex, Long optionId) {
+    if (optionId == null || questionIndex < 0 || questionIndex >= correctOptionIds.length) {
+      return false;
+    }
+    return Arrays.binarySearch(correctOptionIds[questionIndex], optionId) >= 0;
+  }
+
+  /**
+   * Gets the ids of the correct options for a question.
+   *
+   * @param questionIndex The index of the question.
+   * @return The correct option ids.
+   */
+  public List<Long> getCorrectAnswers(int questionIndex) {
+    if (questionIndex < 0 || questionIndex >= correctAnswers.size()) {
+      return Collections.emptyList();
+    }
+    return correctAnswers.get(questionIndex);
+  }
+
+  public int getAmountOfQuestions() {
+    return correctOptionIds.length;
+  }
+}
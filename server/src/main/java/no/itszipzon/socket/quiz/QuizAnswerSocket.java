@@ -8,6 +8,7 @@ public class QuizAnswerSocket {
   private Long id;
   private String answer;
   private int score;
+  private long time;
 
   public QuizAnswerSocket() {
   }
@@ -47,4 +48,17 @@ public class QuizAnswerSocket {
     this.score = score;
   }
 
+  /**
+   * Gets the time the player took to answer.
+   *
+   * @return The time in milliseconds.
+   */
+  public long getTime() {
+    return time;
+  }
+
+  public void setTime(long time) {
+    this.time = time;
+  }
+
 }
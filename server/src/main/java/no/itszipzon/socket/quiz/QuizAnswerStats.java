@@ -0,0 +1,110 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import no.itszipzon.dto.QuizOptionDto;
+import no.itszipzon.dto.QuizQuestionDto;
+
+/**
+ * Aggregated answers to a single question: how many picked each option and how fast they
+ * answered.
+ *
+ * <p>The counters are written on the session's mailbox and may be read from any thread, so
+ * large rooms can report progress without walking the players.
+ */
+public class QuizAnswerStats {
+
+  private static final int BUCKETS = 10;
+
+  private final int questionIndex;
+  private final double timer;
+  private final Map<Long, LongAdder> optionCounts;
+  private final LongAdder[] responseTimes;
+  private final LongAdder answered;
+
+  /**
+   * Constructor for the answer stats of a question.
+   *
+   * @param questionIndex The index of the question.
+   * @param question      The question.
+   * @param timer         The time to answer, in seconds.
+   */
+  public QuizAnswerStats(int questionIndex, QuizQuestionDto question, int timer) {
+    this.questionIndex = questionIndex;
+    this.timer = Math.max(1, timer);
+    Map<Long, LongAdder> counts = new LinkedHashMap<>();
+    for (QuizOptionDto option : question.getQuizOptions()) {
+      counts.put(option.getId(), new LongAdder());
+    }
+    this.optionCounts = Collections.unmodifiableMap(counts);
+    this.responseTimes = new LongAdder[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      responseTimes[i] = new LongAdder();
+    }
+    this.answered = new LongAdder();
+  }
+
+  /**
+   * Counts an answer.
+   *
+   * @param optionId The chosen option.
+   * @param seconds  The time the player took to answer.
+   */
+  public void record(Long optionId, double seconds) {
+    LongAdder count = optionCounts.get(optionId);
+    if (count != null) {
+      count.increment();
+    }
+    int bucket = (int) Math.min(BUCKETS - 1, Math.max(0, seconds / timer * BUCKETS));
+    responseTimes[bucket].increment();
+    answered.increment();
+  }
+
+  /**
+   * Counts an answer that was given before the counts were started, without a response time.
+   *
+   * @param optionId The chosen option.
+   */
+  public void restore(Long optionId) {
+    LongAdder count = optionCounts.get(optionId);
+    if (count != null) {
+      count.increment();
+    }
+    answered.increment();
+  }
+
+  public int getQuestionIndex() {
+    return questionIndex;
+  }
+
+  public long getAnswered() {
+    return answered.sum();
+  }
+
+  /**
+   * Gets the counts as a message payload.
+   *
+   * @return The question index, the amount of answers, the count per option and the response
+   *         time histogram.
+   */
+  public Map<String, Object> toData() {
+    Map<String, Object> options = new LinkedHashMap<>();
+    optionCounts.forEach((id, count) -> options.put(String.valueOf(id), count.sum()));
+    List<Long> histogram = new ArrayList<>(BUCKETS);
+    for (LongAdder bucket : responseTimes) {
+      histogram.add(bucket.sum());
+    }
+    Map<String, Object> data = new HashMap<>();
+    data.put("questionIndex", questionIndex);
+    data.put("answered", answered.sum());
+    data.put("options", options);
+    data.put("responseTimes", histogram);
+    data.put("bucketSeconds", timer / BUCKETS);
+    return data;
+  }
+}
@@ -0,0 +1,131 @@
+package no.itszipzon.socket.quiz;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Renders game events in the compact binary format, for clients that subscribe to the binary
+ * event topic of a session instead of the JSON one.
+ *
+ * <p>A frame is a CBOR array of the sequence number, the code of the event type and the event
+ * data. The data has the same shape as in JSON, except that the keys listed in {@link #KEYS} are
+ * written as their index, and the states and messages listed in {@link #STATES} are written as
+ * their index. Anything else is written as it is. Both lists are append only, so a client always
+ * knows every number it is sent.
+ */
+@Component
+public class QuizBinaryFrames {
+
+  /**
+   * The keys written as integers, by index.
+   */
+  public static final List<String> KEYS = List.of(
+      "state", "message", "isStarted", "currentQuestionIndex", "question", "correctAnswers",
+      "leaderboard", "rank", "username", "score", "id", "players", "playerCount", "questionIndex",
+      "answered", "answers", "options", "responseTimes", "bucketSeconds", "round", "deltas",
+      "points", "correct", "amountOfCorrectAnswers", "leaderUsername", "token", "quiz", "title",
+      "description", "thumbnail", "timer", "amountOfQuestions", "largeRoom", "quizOptions",
+      "option", "leader", "nodeId", "url");
+
+  /**
+   * The values of the state and message keys written as integers, by index.
+   */
+  public static final List<String> STATES = List.of(
+      "WAITING", "create", "join", "settings", "update", "start", "quiz", "next", "showAnswer",
+      "score", "end");
+
+  private static final Map<String, Integer> KEY_IDS = indexOf(KEYS);
+  private static final Map<String, Integer> STATE_IDS = indexOf(STATES);
+
+  private final CBORFactory cborFactory = new CBORFactory();
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  public QuizBinaryFrames() {
+
+  }
+
+  QuizBinaryFrames(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Renders a game event.
+   *
+   * @param event The event.
+   * @return The frame.
+   * @throws IOException If the event data cannot be written.
+   */
+  public byte[] render(QuizGameEvent event) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    try (JsonGenerator generator = cborFactory.createGenerator(out)) {
+      generator.writeStartArray();
+      generator.writeNumber(event.getSeq());
+      generator.writeNumber(event.getType().getCode());
+      writeValue(generator, null, event.getData());
+      generator.writeEndArray();
+    }
+    return out.toByteArray();
+  }
+
+  private void writeValue(JsonGenerator generator, String key, Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (value instanceof String text) {
+      Integer state = "state".equals(key) || "message".equals(key) ? STATE_IDS.get(text) : null;
+      if (state != null) {
+        generator.writeNumber(state);
+      } else {
+        generator.writeString(text);
+      }
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte) {
+      generator.writeNumber(((Number) value).longValue());
+    } else if (value instanceof Number number) {
+      generator.writeNumber(number.doubleValue());
+    } else if (value instanceof Boolean bool) {
+      generator.writeBoolean(bool);
+    } else if (value instanceof Map<?, ?> map) {
+      generator.writeStartObject();
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        String name = String.valueOf(entry.getKey());
+        Integer id = KEY_IDS.get(name);
+        if (id != null) {
+          generator.writeFieldId(id);
+        } else {
+          generator.writeFieldName(name);
+        }
+        writeValue(generator, name, entry.getValue());
+      }
+      generator.writeEndObject();
+    } else if (value instanceof Collection<?> items) {
+      generator.writeStartArray();
+      for (Object item : items) {
+        writeValue(generator, null, item);
+      }
+      generator.writeEndArray();
+    } else if (value instanceof Enum<?> constant) {
+      generator.writeString(constant.name());
+    } else {
+      writeValue(generator, key, objectMapper.convertValue(value, Object.class));
+    }
+  }
+
+  private static Map<String, Integer> indexOf(List<String> names) {
+    Map<String, Integer> ids = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      ids.put(names.get(i), i);
+    }
+    return ids;
+  }
+}
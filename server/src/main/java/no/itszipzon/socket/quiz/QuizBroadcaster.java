@@ -0,0 +1,199 @@
+package no.itszipzon.socket.quiz;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Supplier;
+import no.itszipzon.Logger;
+import no.itszipzon.config.StompSubscriptionTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Sends quiz frames to the subscribers of a session.
+ *
+ * <p>Every frame is rendered to JSON exactly once and the same byte array is handed to the
+ * broker, which shares it between all subscribers of the destination. Frames that only depend on
+ * the session version, like snapshots, are cached on the session until its next event.
+ *
+ * <p>Game events also go out in the binary format of {@link QuizBinaryFrames} on a second topic.
+ * A frame is only rendered for a topic while someone on this node subscribes to it, so the event
+ * topics and the legacy full-session topics cost nothing for clients that do not use them.
+ *
+ * <p>Binary frames are sent as application/octet-stream, with the format named in the
+ * {@value #FORMAT_HEADER} header, since that is the only content type the STOMP handler sends as
+ * a binary WebSocket message. SockJS sends every frame as text, so the binary topics are only
+ * open to clients on the plain WebSocket endpoint.
+ */
+@Component
+public class QuizBroadcaster {
+
+  public static final String BINARY_SUFFIX = "/cbor";
+  public static final String FORMAT_HEADER = "format";
+
+  private static final String JSON_FORMAT = "json";
+  private static final String BINARY_FORMAT = "cbor";
+
+  @Autowired
+  private SimpMessagingTemplate messagingTemplate;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private QuizMetrics quizMetrics;
+  @Autowired
+  private QuizBinaryFrames quizBinaryFrames;
+  @Autowired
+  private StompSubscriptionTracker stompSubscriptionTracker;
+
+  /**
+   * Renders a payload once and sends it to a destination.
+   *
+   * @param destination The destination.
+   * @param payload     The payload.
+   */
+  public void send(String destination, Object payload) {
+    if (hasSubscribers(destination)) {
+      byte[] frame = render(payload);
+      if (frame != null) {
+        sendFrame(destination, frame, JSON_FORMAT);
+      }
+    }
+    if (payload instanceof QuizGameEvent event && hasBinarySubscribers(destination)) {
+      byte[] binary = renderBinary(event);
+      if (binary != null) {
+        sendFrame(destination + BINARY_SUFFIX, binary, BINARY_FORMAT);
+      }
+    }
+  }
+
+  /**
+   * Sends a frame that stays the same until the session publishes its next event. The frame is
+   * only rendered the first time it is asked for at the current version. Must be called from the
+   * session's mailbox.
+   *
+   * @param quizSession The quiz session.
+   * @param destination The destination.
+   * @param key         The kind of frame.
+   * @param payload     Builds the payload if the frame is not cached.
+   */
+  public void sendVersioned(QuizSession quizSession, String destination, String key,
+      Supplier<Object> payload) {
+    long seq = quizSession.getSeq();
+    Object built = null;
+    if (hasSubscribers(destination)) {
+      byte[] frame = quizSession.getFrameCache().get(seq, key);
+      if (frame == null) {
+        built = payload.get();
+        frame = render(built);
+        if (frame == null) {
+          return;
+        }
+        quizSession.getFrameCache().put(seq, key, frame);
+      }
+      sendFrame(destination, frame, JSON_FORMAT);
+    }
+    if (!hasBinarySubscribers(destination)) {
+      return;
+    }
+    byte[] binary = quizSession.getFrameCache().get(seq, key + BINARY_SUFFIX);
+    if (binary == null) {
+      if (built == null) {
+        built = payload.get();
+      }
+      if (!(built instanceof QuizGameEvent event)) {
+        return;
+      }
+      binary = renderBinary(event);
+      if (binary == null) {
+        return;
+      }
+      quizSession.getFrameCache().put(seq, key + BINARY_SUFFIX, binary);
+    }
+    sendFrame(destination + BINARY_SUFFIX, binary, BINARY_FORMAT);
+  }
+
+  /**
+   * Publishes a game event on the event topic of a quiz session. Must be called from the
+   * session's mailbox, so sequence numbers go out in order.
+   *
+   * @param quizSession The quiz session.
+   * @param type        The kind of change.
+   * @param data        The content of the change.
+   */
+  public void publish(QuizSession quizSession, QuizGameEvent.Type type,
+      Map<String, Object> data) {
+    send(getEventDestination(quizSession.getToken()),
+        new QuizGameEvent(quizSession.nextSeq(), type, data));
+  }
+
+  /**
+   * Sends a payload to the queue of a single user, like a player's own result in a large room.
+   *
+   * @param username    The username of the user.
+   * @param destination The user destination.
+   * @param payload     The payload.
+   */
+  public void sendToUser(String username, String destination, Object payload) {
+    messagingTemplate.convertAndSendToUser(username, destination, payload);
+  }
+
+  public String getEventDestination(String token) {
+    return "/topic/quiz/session/" + token + "/events";
+  }
+
+  public String getBinaryEventDestination(String token) {
+    return getEventDestination(token) + BINARY_SUFFIX;
+  }
+
+  /**
+   * Checks if any client on this node subscribes to a destination.
+   *
+   * @param destination The destination.
+   * @return true if a frame sent to the destination reaches someone.
+   */
+  public boolean hasSubscribers(String destination) {
+    return stompSubscriptionTracker.getSubscribers(destination) > 0;
+  }
+
+  private boolean hasBinarySubscribers(String destination) {
+    return hasSubscribers(destination + BINARY_SUFFIX);
+  }
+
+  private byte[] renderBinary(QuizGameEvent event) {
+    try {
+      return quizBinaryFrames.render(event);
+    } catch (IOException e) {
+      Logger.error("Could not render binary quiz frame: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private byte[] render(Object payload) {
+    try {
+      return objectMapper.writeValueAsBytes(payload);
+    } catch (JsonProcessingException e) {
+      Logger.error("Could not render quiz frame: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private void sendFrame(String destination, byte[] frame, String format) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+    if (JSON_FORMAT.equals(format)) {
+      accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+    } else {
+      accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+      accessor.setNativeHeader(FORMAT_HEADER, format);
+    }
+    accessor.setLeaveMutable(true);
+    Message<byte[]> message = MessageBuilder.createMessage(frame, accessor.getMessageHeaders());
+    messagingTemplate.send(destination, message);
+    quizMetrics.recordBroadcast(destination, frame.length, format);
+  }
+}
@@ -1,32 +1,15 @@
 package no.itszipzon.socket.quiz;
 
-import io.jsonwebtoken.Claims;
-import jakarta.persistence.EntityNotFoundException;
-import java.time.LocalDateTime;
+import java.security.Principal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import no.itszipzon.Tools;
-import no.itszipzon.config.JwtUtil;
+import java.util.concurrent.TimeUnit;
 import no.itszipzon.dto.QuizQuestionDto;
-import no.itszipzon.repo.QuizAttemptRepo;
-import no.itszipzon.repo.QuizOptionRepo;
-import no.itszipzon.repo.QuizQuestionRepo;
-import no.itszipzon.repo.QuizRepo;
-import no.itszipzon.repo.QuizSessionRepo;
-import no.itszipzon.repo.UserRepo;
-import no.itszipzon.service.UserService;
-import no.itszipzon.tables.Quiz;
-import no.itszipzon.tables.QuizAnswer;
-import no.itszipzon.tables.QuizAttempt;
-import no.itszipzon.tables.QuizOption;
-import no.itszipzon.tables.QuizQuestion;
-import no.itszipzon.tables.QuizSessionManagerTable;
-import no.itszipzon.tables.QuizSessionTable;
-import no.itszipzon.tables.User;
+import no.itszipzon.service.QuizResultService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
@@ -36,26 +19,28 @@ import org.springframework.stereotype.Controller;
  */
 @Controller
 public class QuizController {
+  private static final int COUNTDOWN_SECONDS = 5;
+  private static final int REVEAL_SECONDS = 5;
+  private static final int SCORE_SECONDS = 10;
+  private static final int LEADERBOARD_SIZE = 10;
+  private static final long AGGREGATE_INTERVAL_MILLIS = 500;
+
   @Autowired
   private SimpMessagingTemplate messagingTemplate;
   @Autowired
   private QuizSessionManager quizSessionManager;
   @Autowired
-  private JwtUtil jwtUtil;
-  @Autowired
-  private QuizQuestionRepo quizQuestionRepo;
-  @Autowired
-  private QuizSessionRepo quizSessionRepo;
-  @Autowired
-  private QuizRepo quizRepo;
-  @Autowired
-  private QuizOptionRepo quizOptionRepo;
-  @Autowired
-  private UserRepo userRepo;
+  private QuizBroadcaster quizBroadcaster;
   @Autowired
-  private QuizAttemptRepo quizAttemptRepo;
+  private QuizResultService quizResultService;
   @Autowired
-  private UserService userService;
+  private QuizJournal quizJournal;
+  @Value("${quiz.socket.legacy-frames:true}")
+  private boolean legacyFrames;
+  @Value("${quiz.session.large-room-threshold:200}")
+  private int largeRoomThreshold;
+  @Value("${quiz.session.max-players:5000}")
+  private int maxPlayers;
 
   /**
    * Sends a message to the client that a quiz has been created.
@@ -64,23 +49,23 @@ public class QuizController {
    * @throws Exception If the message cannot be sent.
    */
   @MessageMapping("/quiz/create")
-  public void createQuiz(QuizMessage message) throws Exception {
-    String token = quizSessionManager.createQuizSession(message);
-    Claims claims = jwtUtil.extractClaims(message.getUserToken());
-    if (claims == null) {
+  public void createQuiz(QuizMessage message, Principal principal) throws Exception {
+    QuizPlayer leader = quizSessionManager.getPlayer(principal, message.getUserToken());
+    if (leader == null) {
       messagingTemplate.convertAndSend("/topic/quiz/create/" + message.getUserToken(),
           "error: User not found");
       return;
     }
-    String username = claims.getSubject();
+    String token = quizSessionManager.createQuizSession(leader, message.getQuizId());
+    String username = leader.getUsername();
     if (token == null) {
       messagingTemplate.convertAndSend("/topic/quiz/create/" + username, "error: Quiz not found");
     } else {
-      QuizSession quizSession = quizSessionManager.getQuizSession(token);
-      quizSession.setMessage("create");
-      quizSession.setToken(token);
-      messagingTemplate.convertAndSend("/topic/quiz/create/" + username,
-          getQuizDetailsFromSessionNoQuestions(quizSession));
+      quizSessionManager.dispatch(token, quizSession -> {
+        quizSession.setMessage("create");
+        messagingTemplate.convertAndSend("/topic/quiz/create/" + username,
+            getQuizDetailsFromSessionNoQuestions(quizSession));
+      });
     }
   }
 
@@ -91,27 +76,64 @@ public class QuizController {
    * @throws Exception If the message cannot be sent.
    */
   @MessageMapping("/quiz/join")
-  public void joinQuiz(QuizMessage message) throws Exception {
-    if (!quizSessionManager.quizSessionExists(message.getToken())) {
-      QuizSession quizSession = new QuizSession();
-      quizSession.setMessage("error: Quiz not found");
-      messagingTemplate.convertAndSend("/topic/quiz/session/" + message.getToken(), quizSession);
-    } else {
-      QuizSession quizSession = quizSessionManager.getQuizSession(message.getToken());
+  public void joinQuiz(QuizMessage message, Principal principal) throws Exception {
+    QuizPlayer player = quizSessionManager.getPlayer(principal, message.getUserToken());
+    if (player == null) {
+      return;
+    }
+    boolean dispatched = quizSessionManager.dispatch(message.getToken(), quizSession -> {
       if (quizSession.isStarted()) {
-        QuizSession newQuizSession = new QuizSession();
-        newQuizSession.setMessage("error: Quiz has already started");
-        newQuizSession.setStarted(true);
-        messagingTemplate.convertAndSend("/topic/quiz/session/" + message.getToken(),
-            newQuizSession);
-        return;
+        if (legacyFrames) {
+          QuizSession newQuizSession = new QuizSession();
+          newQuizSession.setMessage("error: Quiz has already started");
+          newQuizSession.setStarted(true);
+          quizBroadcaster.send("/topic/quiz/session/" + message.getToken(), newQuizSession);
+        }
+        quizBroadcaster.publish(quizSession, QuizGameEvent.Type.ERROR,
+            Map.of("message", "error: Quiz has already started"));
+      } else if (quizSession.getPlayers().size() >= maxPlayers
+          && quizSession.getPlayer(player.getUsername()) == null) {
+        // Only the player who was turned away hears about it, not everyone in the room.
+        quizBroadcaster.sendToUser(player.getUsername(), "/queue/quiz/error",
+            new QuizGameEvent(0, QuizGameEvent.Type.ERROR,
+                Map.of("message", "error: Quiz is full")));
       } else {
-        quizSession.addPlayer(quizSessionManager.getPlayer(message.getUserToken()));
+        int players = quizSession.getPlayers().size();
+        quizSession.addPlayer(player);
         quizSession.setMessage("join");
-        quizSession.setToken(message.getToken());
-        messagingTemplate.convertAndSend("/topic/quiz/session/" + message.getToken(),
-            getQuizDetailsFromSessionNoQuestions(quizSession));
+        if (!quizSession.isLargeRoom() && quizSession.getPlayers().size() >= largeRoomThreshold) {
+          quizSession.setLargeRoom(true);
+          journalQuiz(quizSession);
+          quizBroadcaster.publish(quizSession, QuizGameEvent.Type.QUIZ,
+              getQuizSummary(quizSession));
+        }
+        sendLobbyUpdate(quizSession);
+        if (quizSession.getPlayers().size() > players) {
+          quizJournal.append(quizSession, QuizJournalEntry.Type.JOINED,
+              Map.of("username", player.getUsername(), "id", player.getId()));
+          if (quizSession.isLargeRoom()) {
+            scheduleAggregate(quizSession);
+          } else {
+            quizBroadcaster.publish(quizSession, QuizGameEvent.Type.PLAYER_JOINED,
+                Map.of("username", player.getUsername(), "id", player.getId()));
+          }
+        }
+      }
+    });
+    if (!dispatched) {
+      QuizSessionOwner owner = quizSessionManager.findOwner(message.getToken());
+      if (owner != null && !owner.isLocal()) {
+        handOver(message.getToken(), owner);
+        return;
+      }
+      if (legacyFrames) {
+        QuizSession quizSession = new QuizSession();
+        quizSession.setMessage("error: Quiz not found");
+        quizBroadcaster.send("/topic/quiz/session/" + message.getToken(), quizSession);
       }
+      quizBroadcaster.send(quizBroadcaster.getEventDestination(message.getToken()),
+          new QuizGameEvent(0, QuizGameEvent.Type.ERROR,
+              Map.of("message", "error: Quiz not found")));
     }
   }
 
@@ -122,21 +144,20 @@ public class QuizController {
    * @throws Exception If the message cannot be sent.
    */
   @MessageMapping("/quiz/session/settings")
-  public void settings(QuizMessage message) throws Exception {
-    QuizSession quizSession = quizSessionManager.getQuizSession(message.getToken());
-    Claims claims = jwtUtil.extractClaims(message.getUserToken());
-    if (quizSession.getLeaderUsername().equals(claims.getSubject())) {
+  public void settings(QuizMessage message, Principal principal) throws Exception {
+    QuizPlayer player = quizSessionManager.getPlayer(principal, message.getUserToken());
+    if (player == null) {
+      return;
+    }
+    quizSessionManager.dispatch(message.getToken(), quizSession -> {
+      if (!quizSession.getLeaderUsername().equals(player.getUsername())) {
+        return;
+      }
       quizSession.setMessage("settings");
       Map<String, Object> socketMessage = message.getMessage();
       if (socketMessage.containsKey("setNewQuiz") && (boolean) socketMessage.get("setNewQuiz")) {
-        QuizSession newQuizSession = new QuizSession(quizSession.getLeaderUsername(),
-            (int) socketMessage.get("quizId"));
-        newQuizSession.setPlayers(quizSession.getPlayers());
-        newQuizSession.setToken(quizSession.getToken());
-        newQuizSession.setMessage("update");
-        ;
-        if (quizSessionManager.setNewQuiz(newQuizSession)) {
-          quizSession = newQuizSession;
+        if (quizSessionManager.setNewQuiz(quizSession, (int) socketMessage.get("quizId"))) {
+          quizSession.setMessage("update");
         } else {
           quizSession.setMessage("error:onlyleader: Quiz not found");
         }
@@ -150,9 +171,19 @@ public class QuizController {
           quizSession.setMessage("error:onlyleader: Timer must be at least 5 seconds");
         }
       }
-      messagingTemplate.convertAndSend("/topic/quiz/session/" + message.getToken(),
-          getQuizDetailsFromSessionNoQuestions(quizSession));
-    }
+      if (socketMessage.containsKey("largeRoom") && !quizSession.isStarted()) {
+        quizSession.setLargeRoom(Boolean.TRUE.equals(socketMessage.get("largeRoom")));
+        quizSession.setMessage("update");
+      }
+      sendLobbyUpdate(quizSession);
+      if (quizSession.getMessage().startsWith("error")) {
+        quizBroadcaster.publish(quizSession, QuizGameEvent.Type.ERROR,
+            Map.of("message", quizSession.getMessage()));
+      } else {
+        journalQuiz(quizSession);
+        quizBroadcaster.publish(quizSession, QuizGameEvent.Type.QUIZ, getQuizSummary(quizSession));
+      }
+    });
   }
 
   /**
@@ -162,20 +193,32 @@ public class QuizController {
    * @throws Exception If the message cannot be sent.
    */
   @MessageMapping("/quiz/start")
-  public void startQuiz(QuizMessage message) throws Exception {
-    QuizSession quizSession = quizSessionManager.getQuizSession(message.getToken());
-    Claims claims = jwtUtil.extractClaims(message.getUserToken());
-    if (quizSession.getPlayers().size() < 2) {
-      quizSession.setMessage("error: Not enough players");
-    } else if (!quizSession.getLeaderUsername().equals(claims.getSubject())) {
-      quizSession.setMessage("error: Not the leader");
-    } else {
-      quizSession.setStarted(true);
-      quizSession.setMessage("start");
-      quizSession.setState("start");
+  public void startQuiz(QuizMessage message, Principal principal) throws Exception {
+    QuizPlayer player = quizSessionManager.getPlayer(principal, message.getUserToken());
+    if (player == null) {
+      return;
     }
-    messagingTemplate.convertAndSend("/topic/quiz/session/" + message.getToken(),
-        getQuizDetailsFromSessionNoQuestions(quizSession));
+    quizSessionManager.dispatch(message.getToken(), quizSession -> {
+      if (quizSession.getPlayers().size() < 2) {
+        quizSession.setMessage("error: Not enough players");
+      } else if (!quizSession.getLeaderUsername().equals(player.getUsername())) {
+        quizSession.setMessage("error: Not the leader");
+      } else {
+        quizSession.setStarted(true);
+        quizSession.setMessage("start");
+        quizSession.setState("start");
+        quizJournal.append(quizSession, QuizJournalEntry.Type.STARTED, Map.of());
+        quizSessionManager.scheduleTransition(quizSession, COUNTDOWN_SECONDS, TimeUnit.SECONDS,
+            this::openQuestion);
+      }
+      sendLobbyUpdate(quizSession);
+      if (quizSession.getMessage().startsWith("error")) {
+        quizBroadcaster.publish(quizSession, QuizGameEvent.Type.ERROR,
+            Map.of("message", quizSession.getMessage()));
+      } else {
+        quizBroadcaster.publish(quizSession, QuizGameEvent.Type.STATE, getStateData(quizSession));
+      }
+    });
   }
 
   /**
@@ -185,139 +228,382 @@ public class QuizController {
    * @throws Exception If the message cannot be sent.
    */
   @MessageMapping("/quiz/leave")
-  public void leaveQuiz(QuizMessage message) throws Exception {
-    QuizSession quizSession = quizSessionManager.getQuizSession(message.getToken());
-    Claims claims = jwtUtil.extractClaims(message.getUserToken());
-    String leaveMessage = "";
-    if (claims.getSubject().equalsIgnoreCase(quizSession.getLeaderUsername())) {
-      leaveMessage = "leave: leader:true, user:" + claims.getSubject();
-      quizSessionManager.deleteQuizSession(message.getToken());
-    } else {
-      leaveMessage = "leave: leader:false, user:" + claims.getSubject();
+  public void leaveQuiz(QuizMessage message, Principal principal) throws Exception {
+    QuizPlayer player = quizSessionManager.getPlayer(principal, message.getUserToken());
+    if (player == null) {
+      return;
     }
-    quizSession.removePlayer(claims.getSubject());
-    quizSession.setMessage(leaveMessage);
-    quizSession.setToken(message.getToken());
-    messagingTemplate.convertAndSend("/topic/quiz/session/" + message.getToken(),
-        getQuizDetailsFromSessionNoQuestions(quizSession));
+    quizSessionManager.dispatch(message.getToken(), quizSession -> {
+      String username = player.getUsername();
+      boolean leader = username.equalsIgnoreCase(quizSession.getLeaderUsername());
+      if (leader) {
+        quizSessionManager.deleteQuizSession(message.getToken());
+      } else {
+        quizJournal.append(quizSession, QuizJournalEntry.Type.LEFT, Map.of("username", username));
+      }
+      quizSession.removePlayer(username);
+      quizSession.setMessage("leave: leader:" + leader + ", user:" + username);
+      sendLobbyUpdate(quizSession);
+      if (quizSession.isLargeRoom() && !leader) {
+        scheduleAggregate(quizSession);
+      } else {
+        quizBroadcaster.publish(quizSession, QuizGameEvent.Type.PLAYER_LEFT,
+            Map.of("username", username, "leader", leader));
+      }
+    });
   }
 
   /**
-   * Sends a message to the client that a player has left a quiz session.
+   * Handles in-game messages from the players. Question progression is driven by the server
+   * timer, so the only thing a client can do here is answer, or let the leader skip the score
+   * screen.
    *
    * @param message The message containing the token and the username.
    * @throws Exception If the message cannot be sent.
    */
   @MessageMapping("/quiz/game")
-  public void game(QuizMessage message) throws Exception {
-    QuizSession quizSession = quizSessionManager.getQuizSession(message.getToken());
-    if (quizSession == null) {
+  public void game(QuizMessage message, Principal principal) throws Exception {
+    QuizPlayer player = quizSessionManager.getPlayer(principal, message.getUserToken());
+    if (player == null) {
       return;
     }
-    quizSession.setToken(message.getToken());
     String messageType = message.getMessage().get("message").toString();
-    switch (messageType) {
-      case "firstCountDown":
-        handleFirstCountDown(quizSession, message.getToken());
-        break;
-      case "next":
-        handleNext(quizSession, message);
-        break;
-      case "answer":
-        handleAnswer(quizSession, message);
-        break;
-      default:
-        break;
-    }
-    quizSession.initQuestionStartTime();
-  }
-
-  private void handleFirstCountDown(QuizSession quizSession, String token) {
-    quizSession.setState("quiz");
-    sendQuizUpdate(quizSession, token);
-    System.out.println("First countdown");
-  }
-
-  private void handleNext(QuizSession quizSession, QuizMessage message) throws Exception {
-    Claims claims = jwtUtil.extractClaims(message.getUserToken());
-    if (claims.getSubject().equals(quizSession.getLeaderUsername())) {
-      switch (quizSession.getState()) {
-        case "quiz":
-          handleQuizState(quizSession, message);
+    quizSessionManager.dispatch(message.getToken(), quizSession -> {
+      switch (messageType) {
+        case "next":
+          handleNext(quizSession, player.getUsername());
           break;
-        case "score":
-          fillUnansweredWithNull(quizSession);
-          quizSession.setState("quiz");
-          quizSession.setMessage("next");
-          quizSession.setCurrentQuestionIndex(quizSession.getCurrentQuestionIndex() + 1);
+        case "answer":
+          handleAnswer(quizSession, player.getUsername(), message);
           break;
         default:
-          quizSession.setState("quiz");
-          quizSession.setMessage("next");
           break;
       }
-      sendQuizUpdate(quizSession, message.getToken());
+    });
+  }
+
+  /**
+   * Sends a snapshot of a quiz session on its event topic. Clients request one after they
+   * subscribe, and then apply the deltas that follow it.
+   *
+   * @param message The message containing the token.
+   * @throws Exception If the message cannot be sent.
+   */
+  @MessageMapping("/quiz/sync")
+  public void sync(QuizMessage message) throws Exception {
+    quizSessionManager.dispatch(message.getToken(), quizSession ->
+        quizBroadcaster.sendVersioned(quizSession,
+            quizBroadcaster.getEventDestination(quizSession.getToken()), "snapshot",
+            () -> new QuizGameEvent(quizSession.getSeq(), QuizGameEvent.Type.SNAPSHOT,
+                getSnapshot(quizSession))));
+  }
+
+  /**
+   * Tells a client that its session runs on another node, so it can reconnect there.
+   */
+  private void handOver(String token, QuizSessionOwner owner) {
+    String redirect = "redirect: " + owner.getUrl();
+    if (legacyFrames) {
+      QuizSession quizSession = new QuizSession();
+      quizSession.setMessage(redirect);
+      quizBroadcaster.send("/topic/quiz/session/" + token, quizSession);
+    }
+    quizBroadcaster.send(quizBroadcaster.getEventDestination(token),
+        new QuizGameEvent(0, QuizGameEvent.Type.REDIRECT,
+            Map.of("nodeId", owner.getNodeId(), "url", owner.getUrl(), "message", redirect)));
+  }
+
+  private void handleNext(QuizSession quizSession, String username) {
+    if (username.equals(quizSession.getLeaderUsername())
+        && quizSession.getState().equals("score")) {
+      openNextQuestion(quizSession);
     }
   }
 
-  private void handleAnswer(QuizSession quizSession, QuizMessage message) throws Exception {
-    Claims claims = jwtUtil.extractClaims(message.getUserToken());
-    String username = claims.getSubject();
+  private void handleAnswer(QuizSession quizSession, String username, QuizMessage message) {
+    if (!isQuestionOpen(quizSession)) {
+      return;
+    }
     String answer = message.getMessage().get("answer").toString();
     Long answerId = Long.parseLong(message.getMessage().get("answerId").toString());
-    quizSession.getPlayers().forEach(player -> {
-      if (player.getUsername().equals(username)
-          && player.getAnswers().size() == quizSession.getCurrentQuestionIndex()) {
-        int maxScore = 1000;
-        double seconds = quizSession.getQuestionTime();
-        int score = 0;
-        if (seconds < 0.5) {
-          score = maxScore;
-        } else {
-          double reductionFactor = 1 - ((seconds / quizSession.getQuiz().getTimer()) / 2);
-          score = (int) Math.round(maxScore * reductionFactor);
-        }
-        QuizAnswerSocket quizAnswerSocket = new QuizAnswerSocket(answer, answerId);
-        quizAnswerSocket.setScore(score);
-        player.getAnswers().add(quizSession.getCurrentQuestionIndex(), quizAnswerSocket);
-      }
-    });
+    double seconds = quizSession.getQuestionTime();
+    QuizPlayer player = quizSession.getPlayer(username);
+    if (player == null || player.getAnswers().size() != quizSession.getCurrentQuestionIndex()) {
+      return;
+    }
+    int maxScore = 1000;
+    int score = 0;
+    if (seconds < 0.5) {
+      score = maxScore;
+    } else {
+      double reductionFactor = 1 - ((seconds / quizSession.getQuiz().getTimer()) / 2);
+      score = (int) Math.round(maxScore * reductionFactor);
+    }
+    QuizAnswerSocket quizAnswerSocket = new QuizAnswerSocket(answer, answerId);
+    quizAnswerSocket.setScore(score);
+    quizAnswerSocket.setTime(Math.round(seconds * 1000));
+    player.getAnswers().add(quizSession.getCurrentQuestionIndex(), quizAnswerSocket);
+    quizSession.getAnswerStats().record(answerId, seconds);
+    quizJournal.append(quizSession, QuizJournalEntry.Type.ANSWER, Map.of(
+        "username", username,
+        "questionIndex", quizSession.getCurrentQuestionIndex(),
+        "answer", answer,
+        "answerId", answerId,
+        "score", score,
+        "time", quizAnswerSocket.getTime()));
+    if (quizSession.isLargeRoom()) {
+      scheduleAggregate(quizSession);
+    } else {
+      quizBroadcaster.publish(quizSession, QuizGameEvent.Type.ANSWER_COUNT, Map.of(
+          "username", username,
+          "questionIndex", quizSession.getCurrentQuestionIndex(),
+          "answered", getAmountAnswered(quizSession),
+          "players", quizSession.getPlayers().size()));
+    }
     if (isAllPlayersAnswered(quizSession)) {
-      calculateScore(quizSession);
-      quizSession.setMessage("showAnswer");
-      sendQuizUpdate(quizSession, message.getToken());
+      closeQuestion(quizSession);
     }
   }
 
-  private void handleQuizState(QuizSession quizSession, QuizMessage message) throws Exception {
-    int current = quizSession.getCurrentQuestionIndex();
-    int amount = quizSession.getAmountOfQuestions() - 1;
-    if (message.getMessage().containsKey("quizState")
-        && message.getMessage().get("quizState").equals("showAnswer")) {
-      quizSession.setMessage("showAnswer");
+  /**
+   * Opens the current question and starts its timer.
+   */
+  private void openQuestion(QuizSession quizSession) {
+    quizSession.setState("quiz");
+    quizSession.setMessage("next");
+    quizSession.initQuestionStartTime();
+    journalState(quizSession);
+    sendQuizUpdate(quizSession, quizSession.getToken());
+    quizBroadcaster.publish(quizSession, QuizGameEvent.Type.STATE, getStateData(quizSession));
+    int timer = quizSession.getQuiz().getTimer();
+    if (timer > 0) {
+      quizSessionManager.scheduleTransition(quizSession, timer, TimeUnit.SECONDS,
+          this::closeQuestion);
     } else {
-      if (current == amount) {
-        quizSession.setState("end");
-        calculateScore(quizSession);
-        fillUnansweredWithNull(quizSession);
-        handleEnd(quizSession);
-      } else {
-        calculateScore(quizSession);
-        quizSession.setState("score");
-      }
+      quizSessionManager.cancelTransition(quizSession);
     }
   }
 
+  /**
+   * Closes the current question and shows the correct answers.
+   */
+  private void closeQuestion(QuizSession quizSession) {
+    if (!isQuestionOpen(quizSession)) {
+      return;
+    }
+    calculateScore(quizSession);
+    quizSession.setMessage("showAnswer");
+    journalState(quizSession);
+    sendQuizUpdate(quizSession, quizSession.getToken());
+    if (quizSession.isLargeRoom()) {
+      publishRoundResult(quizSession);
+    } else {
+      quizBroadcaster.publish(quizSession, QuizGameEvent.Type.SCORE_DELTA, Map.of(
+          "round", quizSession.getScoreEngine().getLastRound(),
+          "leaderboard", quizSession.getRanking().top(LEADERBOARD_SIZE)));
+    }
+    quizBroadcaster.publish(quizSession, QuizGameEvent.Type.STATE, getStateData(quizSession));
+    quizSessionManager.scheduleTransition(quizSession, REVEAL_SECONDS, TimeUnit.SECONDS,
+        this::revealScore);
+  }
+
+  /**
+   * Shows the scoreboard, or ends the game after the last question.
+   */
+  private void revealScore(QuizSession quizSession) {
+    quizSession.fillUnansweredWithNull();
+    if (quizSession.getCurrentQuestionIndex() == quizSession.getAmountOfQuestions() - 1) {
+      quizSession.setState("end");
+      handleEnd(quizSession);
+      sendQuizUpdate(quizSession, quizSession.getToken());
+      quizBroadcaster.publish(quizSession, QuizGameEvent.Type.STATE, getStateData(quizSession));
+    } else {
+      quizSession.setState("score");
+      journalState(quizSession);
+      sendQuizUpdate(quizSession, quizSession.getToken());
+      quizBroadcaster.publish(quizSession, QuizGameEvent.Type.STATE, getStateData(quizSession));
+      quizSessionManager.scheduleTransition(quizSession, SCORE_SECONDS, TimeUnit.SECONDS,
+          this::openNextQuestion);
+    }
+  }
+
+  /**
+   * Picks up a session restored from the journal where it left off. Runs on the session's
+   * mailbox. A question that was open when the server stopped is opened again with a fresh
+   * timer.
+   *
+   * @param quizSession The restored quiz session.
+   */
+  public void resume(QuizSession quizSession) {
+    quizSession.touch();
+    if (!quizSession.isStarted()) {
+      return;
+    }
+    switch (quizSession.getState()) {
+      case "start":
+        quizSessionManager.scheduleTransition(quizSession, COUNTDOWN_SECONDS, TimeUnit.SECONDS,
+            this::openQuestion);
+        break;
+      case "quiz":
+        if ("showAnswer".equals(quizSession.getMessage())) {
+          quizSessionManager.scheduleTransition(quizSession, REVEAL_SECONDS, TimeUnit.SECONDS,
+              this::revealScore);
+        } else {
+          openQuestion(quizSession);
+        }
+        break;
+      case "score":
+        quizSessionManager.scheduleTransition(quizSession, SCORE_SECONDS, TimeUnit.SECONDS,
+            this::openNextQuestion);
+        break;
+      default:
+        quizSessionManager.deleteQuizSession(quizSession.getToken());
+        break;
+    }
+  }
+
+  private void openNextQuestion(QuizSession quizSession) {
+    quizSession.incrementCurrentQuestionIndex();
+    openQuestion(quizSession);
+  }
+
+  private boolean isQuestionOpen(QuizSession quizSession) {
+    return quizSession.getState().equals("quiz") && !"showAnswer".equals(quizSession.getMessage());
+  }
+
   private boolean isAllPlayersAnswered(QuizSession quizSession) {
-    long answers = quizSession.getPlayers().stream()
-        .filter(player -> player.getAnswers().size() == (quizSession.getCurrentQuestionIndex() + 1))
-        .count();
-    return answers == quizSession.getPlayers().size();
+    return getAmountAnswered(quizSession) >= quizSession.getPlayers().size();
+  }
+
+  private long getAmountAnswered(QuizSession quizSession) {
+    QuizAnswerStats answerStats = quizSession.getAnswerStats();
+    if (answerStats == null
+        || answerStats.getQuestionIndex() != quizSession.getCurrentQuestionIndex()) {
+      return 0;
+    }
+    return answerStats.getAnswered();
+  }
+
+  /**
+   * Publishes the player and answer counts of a large room at most once per interval, so a burst
+   * of joins or answers turns into a single event instead of one per player.
+   */
+  private void scheduleAggregate(QuizSession quizSession) {
+    if (quizSession.isAggregatePending()) {
+      return;
+    }
+    quizSession.setAggregatePending(true);
+    quizSessionManager.schedule(quizSession, AGGREGATE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS,
+        this::publishAggregate);
+  }
+
+  private void publishAggregate(QuizSession quizSession) {
+    quizSession.setAggregatePending(false);
+    Map<String, Object> data = new HashMap<>();
+    data.put("players", quizSession.getPlayers().size());
+    if (isQuestionOpen(quizSession) && quizSession.getAnswerStats() != null) {
+      data.put("answers", quizSession.getAnswerStats().toData());
+    }
+    quizBroadcaster.publish(quizSession, QuizGameEvent.Type.AGGREGATE, data);
+  }
+
+  /**
+   * Publishes the answer counts and the leaderboard of a closed question, and sends every player
+   * their own result on their user queue.
+   */
+  private void publishRoundResult(QuizSession quizSession) {
+    Map<String, Object> data = new HashMap<>();
+    data.put("questionIndex", quizSession.getCurrentQuestionIndex());
+    data.put("correctAnswers",
+        quizSession.getAnswerKey().getCorrectAnswers(quizSession.getCurrentQuestionIndex()));
+    data.put("players", quizSession.getPlayers().size());
+    if (quizSession.getAnswerStats() != null) {
+      data.put("answers", quizSession.getAnswerStats().toData());
+    }
+    data.put("leaderboard", quizSession.getRanking().top(LEADERBOARD_SIZE));
+    quizBroadcaster.publish(quizSession, QuizGameEvent.Type.ROUND_RESULT, data);
+    QuizRoundScore round = quizSession.getScoreEngine().getLastRound();
+    for (QuizRoundScore.PlayerDelta delta : round.getDeltas()) {
+      Map<String, Object> result = new HashMap<>();
+      result.put("token", quizSession.getToken());
+      result.put("questionIndex", round.getQuestionIndex());
+      result.put("correct", delta.isCorrect());
+      result.put("points", delta.getPoints());
+      result.put("score", delta.getScore());
+      result.put("rank", delta.getRank());
+      quizBroadcaster.sendToUser(delta.getUsername(), "/queue/quiz/result", result);
+    }
   }
 
   private void sendQuizUpdate(QuizSession quizSession, String token) {
-    messagingTemplate.convertAndSend("/topic/quiz/game/session/" + token,
-        getQuizDetailsFromSessionQuestion(quizSession, quizSession.getCurrentQuestionIndex()));
+    String destination = "/topic/quiz/game/session/" + token;
+    if (legacyFrames && !quizSession.isLargeRoom() && quizBroadcaster.hasSubscribers(destination)) {
+      quizBroadcaster.send(destination,
+          getQuizDetailsFromSessionQuestion(quizSession, quizSession.getCurrentQuestionIndex()));
+    }
+  }
+
+  private void sendLobbyUpdate(QuizSession quizSession) {
+    String destination = "/topic/quiz/session/" + quizSession.getToken();
+    if (legacyFrames && !quizSession.isLargeRoom() && quizBroadcaster.hasSubscribers(destination)) {
+      quizBroadcaster.send(destination, getQuizDetailsFromSessionNoQuestions(quizSession));
+    }
+  }
+
+  Map<String, Object> getSnapshot(QuizSession quizSession) {
+    Map<String, Object> snapshot = getStateData(quizSession);
+    snapshot.put("leaderUsername", quizSession.getLeaderUsername());
+    snapshot.put("token", quizSession.getToken());
+    snapshot.put("quiz", getQuizSummary(quizSession));
+    snapshot.put("answered", getAmountAnswered(quizSession));
+    if (quizSession.isLargeRoom()) {
+      snapshot.put("playerCount", quizSession.getPlayers().size());
+      snapshot.put("leaderboard", quizSession.getRanking().top(LEADERBOARD_SIZE));
+      return snapshot;
+    }
+    List<Map<String, Object>> players = new ArrayList<>();
+    for (QuizPlayer player : quizSession.getPlayers()) {
+      Map<String, Object> playerDetails = new HashMap<>();
+      playerDetails.put("username", player.getUsername());
+      playerDetails.put("id", player.getId());
+      playerDetails.put("score", player.getScore());
+      playerDetails.put("amountOfCorrectAnswers", player.getAmountOfCorrectAnswers());
+      playerDetails.put("rank", quizSession.getRanking().getRank(player.getUsername()));
+      players.add(playerDetails);
+    }
+    snapshot.put("players", players);
+    return snapshot;
+  }
+
+  private Map<String, Object> getStateData(QuizSession quizSession) {
+    Map<String, Object> state = new HashMap<>();
+    state.put("state", quizSession.getState());
+    state.put("message", quizSession.getMessage());
+    state.put("isStarted", quizSession.isStarted());
+    state.put("currentQuestionIndex", quizSession.getCurrentQuestionIndex());
+    if (quizSession.getState().equals("quiz")) {
+      state.put("question", quizSession.getCurrentQuestion());
+      if ("showAnswer".equals(quizSession.getMessage())) {
+        state.put("correctAnswers",
+            quizSession.getAnswerKey().getCorrectAnswers(quizSession.getCurrentQuestionIndex()));
+      }
+    } else if (quizSession.isLargeRoom() && quizSession.isStarted()) {
+      state.put("leaderboard", quizSession.getRanking().top(LEADERBOARD_SIZE));
+    }
+    return state;
+  }
+
+  private Map<String, Object> getQuizSummary(QuizSession quizSession) {
+    Map<String, Object> quiz = new HashMap<>();
+    quiz.put("id", quizSession.getQuiz().getId());
+    quiz.put("title", quizSession.getQuiz().getTitle());
+    quiz.put("description", quizSession.getQuiz().getDescription());
+    quiz.put("thumbnail", quizSession.getQuiz().getThumbnail());
+    quiz.put("timer", quizSession.getQuiz().getTimer());
+    quiz.put("username", quizSession.getQuiz().getUsername());
+    quiz.put("amountOfQuestions", quizSession.getAmountOfQuestions());
+    quiz.put("largeRoom", quizSession.isLargeRoom());
+    return quiz;
   }
 
   private Map<String, Object> getQuizDetailsFromSessionNoQuestions(QuizSession quizSession) {
@@ -342,7 +628,7 @@ public class QuizController {
     return quizDetails;
   }
 
-  private Map<String, Object> getQuizDetailsFromSessionQuestion(QuizSession quizSession,
+  Map<String, Object> getQuizDetailsFromSessionQuestion(QuizSession quizSession,
       int questionIndex) {
     getCorrectAnswers(quizSession);
     Map<String, Object> quizDetails = new HashMap<>();
@@ -355,6 +641,7 @@ public class QuizController {
     quizDetails.put("state", quizSession.getState());
     quizDetails.put("lastCorrectAnswers", quizSession.getLastCorrectAnswers());
     quizDetails.put("currentQuestionIndex", quizSession.getCurrentQuestionIndex());
+    quizDetails.put("roundScore", quizSession.getScoreEngine().getLastRound());
     Map<String, Object> quiz = new HashMap<>();
     quiz.put("id", quizSession.getQuiz().getId());
     quiz.put("title", quizSession.getQuiz().getTitle());
@@ -371,116 +658,31 @@ public class QuizController {
   }
 
   private void calculateScore(QuizSession session) {
-    for (QuizPlayer qp : session.getPlayers()) {
-      int score = 0;
-      for (int i = 0; i < qp.getAnswers().size(); i++) {
-        Long questionId = session.getQuiz().getQuizQuestions().get(i).getId();
-        if (qp.getAnswers().get(i).getAnswer() == null) {
-          continue;
-        }
-        Long optionId = qp.getAnswers().get(i).getId();
-        if (quizQuestionRepo.checkIfCorrectAnswer(questionId, optionId).get()) {
-          score += qp.getAnswers().get(i).getScore();
-          qp.setAmountOfCorrectAnswers(qp.getAmountOfCorrectAnswers() + 1);
-        }
-      }
-      qp.setScore(score);
-    }
+    session.getScoreEngine().closeRound(session.getCurrentQuestionIndex(), session.getPlayers());
   }
 
   private void handleEnd(QuizSession session) {
-
-    QuizSessionManagerTable quizSessionManagerTable = new QuizSessionManagerTable();
-
-    Quiz quiz = quizRepo.findById(session.getQuiz().getId())
-        .orElseThrow(() -> new EntityNotFoundException("Quiz not found"));
-
-    quizSessionManagerTable.setQuiz(quiz);
-    User quizOwner = userRepo.findUserByUsername(session.getQuiz().getUsername()).get();
-    List<QuizSessionTable> quizSessionTables = new ArrayList<>();
-
-    for (QuizPlayer player : session.getPlayers()) {
-      QuizSessionTable quizSessionTable = new QuizSessionTable();
-
-      User user = userRepo.findById(player.getId())
-          .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-      quizSessionTable.setUser(user);
-      quizSessionTable.setQuizManager(quizSessionManagerTable);
-      QuizAttempt quizAttempt = new QuizAttempt();
-      quizAttempt.setQuiz(quiz);
-      quizAttempt.setUser(user);
-      List<QuizAnswer> quizAnswers = new ArrayList<>();
-
-      for (int i = 0; i < session.getQuiz().getQuizQuestions().size(); i++) {
-        QuizAnswer quizAnswer = new QuizAnswer();
-        quizAnswer.setQuizAttempt(quizAttempt);
-
-        QuizQuestion quizQuestion = quizQuestionRepo
-            .findById(session.getQuiz().getQuizQuestions().get(i).getId())
-            .orElseThrow(() -> new EntityNotFoundException("QuizQuestion not found"));
-
-        quizAnswer.setQuizQuestion(quizQuestion);
-
-        if (player.getAnswers().get(i).getId() == null) {
-          quizAnswer.setQuizOption(null);
-        } else {
-
-          QuizOption quizOption = quizOptionRepo.findById(player.getAnswers().get(i).getId())
-              .orElseThrow(() -> new EntityNotFoundException("QuizOption not found"));
-
-          quizAnswer.setQuizOption(quizOption);
-        }
-        quizAnswers.add(quizAnswer);
-      }
-
-      LocalDateTime now = LocalDateTime.now();
-      LocalDateTime oneMonth = now.minusMonths(1);
-
-      int amountOfTries = quizAttemptRepo.countAttemptLastMonth(
-          user.getUsername(),
-          session.getQuizId(),
-          oneMonth,
-          now);
-      
-      int xp = Tools.calculateXp(
-          player.getScore(),
-          session.getAmountOfQuestions(),
-          player.getAmountOfCorrectAnswers(),
-          amountOfTries
-        );
-
-      quizAttempt.setQuizAnswers(quizAnswers);
-      quizAttempt.setExpEarned(xp);
-      quizAttempt = quizAttemptRepo.save(quizAttempt);
-      quizSessionTable.setQuizAttempt(quizAttempt);
-      quizSessionTables.add(quizSessionTable);
-
-      if (!user.getUsername().equalsIgnoreCase(quizOwner.getUsername())) {
-        userService.addXp(user, xp);
-        userService.addXp(quizOwner, 250);
-      }
-      
-    }
-    quizSessionManagerTable.setQuizSessions(quizSessionTables);
-    quizSessionRepo.save(quizSessionManagerTable);
+    quizResultService.save(QuizResult.of(session));
     quizSessionManager.deleteQuizSession(session.getToken());
   }
 
   private void getCorrectAnswers(QuizSession session) {
-    Optional<List<Long>> correctAnswers = quizQuestionRepo.findCorrectAnswers(
-        session.getQuiz().getQuizQuestions().get(session.getCurrentQuestionIndex()).getId());
-    if (correctAnswers.isPresent()) {
-      session.setLastCorrectAnswers(correctAnswers.get());
-    }
+    session.setLastCorrectAnswers(
+        session.getAnswerKey().getCorrectAnswers(session.getCurrentQuestionIndex()));
   }
 
-  private void fillUnansweredWithNull(QuizSession quizSession) {
-    int questionIndex = quizSession.getCurrentQuestionIndex();
-    quizSession.getPlayers().forEach(player -> {
-      while (player.getAnswers().size() <= questionIndex) {
-        player.getAnswers().add(new QuizAnswerSocket(null, null));
-      }
-    });
+  private void journalQuiz(QuizSession quizSession) {
+    quizJournal.append(quizSession, QuizJournalEntry.Type.QUIZ, Map.of(
+        "quizId", quizSession.getQuizId(),
+        "timer", quizSession.getQuiz().getTimer(),
+        "largeRoom", quizSession.isLargeRoom(),
+        "shuffleSeed", quizSession.getShuffleSeed()));
+  }
+
+  private void journalState(QuizSession quizSession) {
+    quizJournal.append(quizSession, QuizJournalEntry.Type.STATE, Map.of(
+        "state", quizSession.getState(),
+        "message", quizSession.getMessage(),
+        "questionIndex", quizSession.getCurrentQuestionIndex()));
   }
 }
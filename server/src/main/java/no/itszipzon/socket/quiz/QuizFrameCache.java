@@ -0,0 +1,52 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rendered frames of a quiz session, valid for a single sequence number.
+ *
+ * <p>The cache is only touched from the session's mailbox, and is dropped as soon as the session
+ * publishes a new event.
+ */
+public class QuizFrameCache {
+
+  private final Map<String, byte[]> frames;
+  private long seq;
+
+  public QuizFrameCache() {
+    this.frames = new HashMap<>();
+    this.seq = -1;
+  }
+
+  /**
+   * Gets a rendered frame.
+   *
+   * @param seq The current sequence number of the session.
+   * @param key The kind of frame.
+   * @return The frame, or null if it is not rendered for this sequence number.
+   */
+  public byte[] get(long seq, String key) {
+    if (this.seq != seq) {
+      frames.clear();
+      this.seq = seq;
+      return null;
+    }
+    return frames.get(key);
+  }
+
+  /**
+   * Stores a rendered frame.
+   *
+   * @param seq   The sequence number the frame was rendered at.
+   * @param key   The kind of frame.
+   * @param frame The frame.
+   */
+  public void put(long seq, String key, byte[] frame) {
+    if (this.seq != seq) {
+      frames.clear();
+      this.seq = seq;
+    }
+    frames.put(key, frame);
+  }
+}
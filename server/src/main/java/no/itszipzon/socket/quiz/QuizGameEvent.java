@@ -0,0 +1,71 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.Map;
+
+/**
+ * A versioned game state message.
+ *
+ * <p>A client first receives a {@link Type#SNAPSHOT} of the whole session and then applies the
+ * deltas that follow it in sequence order. Any event with a sequence number at or below the one
+ * the client has already applied can be ignored.
+ */
+public class QuizGameEvent {
+
+  /**
+   * The kind of change an event carries. JSON frames carry the name of the type, and binary
+   * frames carry its code.
+   */
+  public enum Type {
+    SNAPSHOT(0),
+    PLAYER_JOINED(1),
+    PLAYER_LEFT(2),
+    QUIZ(3),
+    STATE(4),
+    ANSWER_COUNT(5),
+    SCORE_DELTA(6),
+    AGGREGATE(7),
+    ROUND_RESULT(8),
+    ERROR(9),
+    CLOSED(10),
+    REDIRECT(11);
+
+    private final int code;
+
+    Type(int code) {
+      this.code = code;
+    }
+
+    public int getCode() {
+      return code;
+    }
+  }
+
+  private final long seq;
+  private final Type type;
+  private final Map<String, Object> data;
+
+  /**
+   * Constructor for a game event.
+   *
+   * @param seq  The sequence number of the event within its session.
+   * @param type The kind of change.
+   * @param data The content of the change.
+   */
+  public QuizGameEvent(long seq, Type type, Map<String, Object> data) {
+    this.seq = seq;
+    this.type = type;
+    this.data = data;
+  }
+
+  public long getSeq() {
+    return seq;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public Map<String, Object> getData() {
+    return data;
+  }
+}
@@ -0,0 +1,347 @@
+package no.itszipzon.socket.quiz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import no.itszipzon.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * An append-only journal of quiz session changes, so live sessions survive a restart.
+ *
+ * <p>Entries are queued by the session mailboxes and written in batches by a single writer
+ * thread into memory-mapped segment files, as length-prefixed JSON records. Every entry carries a
+ * per-session sequence number. Compaction rolls to a new segment, writes a snapshot of every live
+ * session and then deletes the older segments; on replay, entries at or below a session's
+ * snapshot sequence number are skipped, so an entry that lands on both sides of a snapshot is
+ * only applied once.
+ */
+@Component
+public class QuizJournal {
+
+  private static final int MAX_BATCH = 256;
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+  private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+  private Path directory;
+  private int segment;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private Thread writer;
+  private volatile boolean running;
+  private volatile boolean replayed;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private QuizSessionStore quizSessionStore;
+  @Value("${quiz.journal.enabled:false}")
+  private boolean enabled;
+  @Value("${quiz.journal.dir:journal}")
+  private String journalDir;
+  @Value("${quiz.journal.segment-bytes:16777216}")
+  private int segmentBytes;
+
+  public QuizJournal() {
+
+  }
+
+  QuizJournal(ObjectMapper objectMapper, QuizSessionStore quizSessionStore, String journalDir,
+      int segmentBytes) {
+    this.objectMapper = objectMapper;
+    this.quizSessionStore = quizSessionStore;
+    this.enabled = true;
+    this.journalDir = journalDir;
+    this.segmentBytes = segmentBytes;
+  }
+
+  /**
+   * Opens a fresh segment after the existing ones and starts the writer. Existing segments are
+   * left alone until they are replayed and compacted.
+   *
+   * @throws IOException If the journal directory cannot be used.
+   */
+  @PostConstruct
+  public void init() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    directory = Paths.get(journalDir);
+    Files.createDirectories(directory);
+    List<Integer> segments = listFiles(SEGMENT_PREFIX);
+    openSegment(segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1);
+    running = true;
+    writer = new Thread(this::write, "quiz-journal");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Stops the writer after it has written everything already queued.
+   *
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    if (!enabled) {
+      return;
+    }
+    running = false;
+    writer.join(TimeUnit.SECONDS.toMillis(10));
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Queues a change to a quiz session. Must be called from the session's mailbox. The data must
+   * not be changed after it is handed over.
+   *
+   * @param quizSession The quiz session.
+   * @param type        The kind of change.
+   * @param data        The content of the change.
+   */
+  public void append(QuizSession quizSession, QuizJournalEntry.Type type,
+      Map<String, Object> data) {
+    if (!enabled) {
+      return;
+    }
+    queue.add(new QuizJournalEntry(type, quizSession.getToken(), quizSession.nextJournalSeq(),
+        data));
+  }
+
+  /**
+   * Reads the latest snapshot of every session.
+   *
+   * @return The snapshots, or an empty list if the journal has never been compacted.
+   * @throws IOException If the snapshot cannot be read.
+   */
+  public List<QuizSessionSnapshot> readSnapshots() throws IOException {
+    List<QuizSessionSnapshot> snapshots = new ArrayList<>();
+    if (!enabled) {
+      return snapshots;
+    }
+    List<Integer> files = listFiles(SNAPSHOT_PREFIX);
+    if (!files.isEmpty()) {
+      for (byte[] record : readRecords(getPath(SNAPSHOT_PREFIX, files.get(files.size() - 1)))) {
+        snapshots.add(objectMapper.readValue(record, QuizSessionSnapshot.class));
+      }
+    }
+    return snapshots;
+  }
+
+  /**
+   * Reads every entry written since the latest snapshot, in the order they were written.
+   *
+   * @return The entries.
+   * @throws IOException If a segment cannot be read.
+   */
+  public List<QuizJournalEntry> readEntries() throws IOException {
+    List<QuizJournalEntry> entries = new ArrayList<>();
+    if (!enabled) {
+      return entries;
+    }
+    List<Integer> snapshots = listFiles(SNAPSHOT_PREFIX);
+    int first = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+    for (int index : listFiles(SEGMENT_PREFIX)) {
+      if (index < first || index == segment) {
+        continue;
+      }
+      for (byte[] record : readRecords(getPath(SEGMENT_PREFIX, index))) {
+        try {
+          entries.add(objectMapper.readValue(record, QuizJournalEntry.class));
+        } catch (IOException e) {
+          Logger.warning("Stopped reading quiz journal segment " + index + " at a torn entry");
+          break;
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Marks the journal as replayed. Compaction only starts after this, so segments are never
+   * deleted before their entries have been restored.
+   */
+  public void markReplayed() {
+    replayed = true;
+  }
+
+  /**
+   * Rolls to a new segment, writes a snapshot of every live session and deletes what the
+   * snapshot replaces.
+   */
+  @Scheduled(fixedDelayString = "${quiz.journal.compact-interval-ms:300000}")
+  public void compact() {
+    if (!enabled || !replayed) {
+      return;
+    }
+    try {
+      Roll roll = new Roll();
+      queue.add(roll);
+      int first = roll.segment.get(10, TimeUnit.SECONDS);
+
+      List<CompletableFuture<byte[]>> snapshots = new ArrayList<>();
+      for (QuizSession quizSession : quizSessionStore.values()) {
+        CompletableFuture<byte[]> snapshot = new CompletableFuture<>();
+        quizSession.getMailbox().execute(() -> {
+          try {
+            snapshot.complete(quizSessionStore.get(quizSession.getToken()) == quizSession
+                ? objectMapper.writeValueAsBytes(QuizSessionSnapshot.of(quizSession))
+                : null);
+          } catch (Exception e) {
+            snapshot.completeExceptionally(e);
+          }
+        });
+        snapshots.add(snapshot);
+      }
+
+      Path temp = directory.resolve(SNAPSHOT_PREFIX + "tmp");
+      try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        for (CompletableFuture<byte[]> snapshot : snapshots) {
+          byte[] record = snapshot.get(10, TimeUnit.SECONDS);
+          if (record != null) {
+            ByteBuffer frame = ByteBuffer.allocate(4 + record.length);
+            frame.putInt(record.length).put(record).flip();
+            while (frame.hasRemaining()) {
+              out.write(frame);
+            }
+          }
+        }
+        out.force(true);
+      }
+      Files.move(temp, getPath(SNAPSHOT_PREFIX, first), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+
+      for (int index : listFiles(SNAPSHOT_PREFIX)) {
+        if (index < first) {
+          Files.deleteIfExists(getPath(SNAPSHOT_PREFIX, index));
+        }
+      }
+      for (int index : listFiles(SEGMENT_PREFIX)) {
+        if (index < first) {
+          Files.deleteIfExists(getPath(SEGMENT_PREFIX, index));
+        }
+      }
+    } catch (Exception e) {
+      Logger.error("Could not compact the quiz journal: " + e.getMessage());
+    }
+  }
+
+  private void write() {
+    List<Object> batch = new ArrayList<>(MAX_BATCH);
+    while (running || !queue.isEmpty()) {
+      try {
+        Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, MAX_BATCH - 1);
+        for (Object item : batch) {
+          if (item instanceof Roll roll) {
+            openSegment(segment + 1);
+            roll.segment.complete(segment);
+          } else {
+            writeEntry((QuizJournalEntry) item);
+          }
+        }
+        buffer.force();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        Logger.error("Could not write to the quiz journal: " + e.getMessage());
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void writeEntry(QuizJournalEntry entry) throws IOException {
+    byte[] record = objectMapper.writeValueAsBytes(entry);
+    if (buffer.remaining() < record.length + 8) {
+      openSegment(segment + 1);
+    }
+    if (buffer.remaining() < record.length + 8) {
+      Logger.error("Quiz journal entry too large for a segment: " + record.length + " bytes");
+      return;
+    }
+    buffer.putInt(record.length);
+    buffer.put(record);
+  }
+
+  private void openSegment(int index) throws IOException {
+    if (channel != null) {
+      buffer.force();
+      channel.close();
+    }
+    segment = index;
+    channel = FileChannel.open(getPath(SEGMENT_PREFIX, index), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+  }
+
+  private List<byte[]> readRecords(Path path) throws IOException {
+    List<byte[]> records = new ArrayList<>();
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+      while (data.remaining() >= 4) {
+        int length = data.getInt();
+        if (length <= 0 || length > data.remaining()) {
+          break;
+        }
+        byte[] record = new byte[length];
+        data.get(record);
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  private List<Integer> listFiles(String prefix) throws IOException {
+    List<Integer> indexes = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.map(path -> path.getFileName().toString())
+          .filter(name -> name.startsWith(prefix) && name.endsWith(".bin"))
+          .forEach(name -> indexes.add(
+              Integer.parseInt(name.substring(prefix.length(), name.length() - 4))));
+    }
+    indexes.sort(null);
+    return indexes;
+  }
+
+  private Path getPath(String prefix, int index) {
+    return directory.resolve(String.format("%s%06d.bin", prefix, index));
+  }
+
+  /**
+   * Asks the writer to move on to a new segment.
+   */
+  private static class Roll {
+    private final CompletableFuture<Integer> segment = new CompletableFuture<>();
+  }
+}
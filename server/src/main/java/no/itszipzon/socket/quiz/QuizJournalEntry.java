@@ -0,0 +1,78 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.Map;
+
+/**
+ * A single change to a quiz session, as written to the journal.
+ */
+public class QuizJournalEntry {
+
+  /**
+   * The kind of change.
+   */
+  public enum Type {
+    CREATED,
+    JOINED,
+    LEFT,
+    QUIZ,
+    STARTED,
+    ANSWER,
+    STATE,
+    DELETED
+  }
+
+  private Type type;
+  private String token;
+  private long seq;
+  private Map<String, Object> data;
+
+  public QuizJournalEntry() {
+  }
+
+  /**
+   * Constructor for a journal entry.
+   *
+   * @param type  The kind of change.
+   * @param token The token for the quiz session.
+   * @param seq   The journal sequence number of the change within its session.
+   * @param data  The content of the change.
+   */
+  public QuizJournalEntry(Type type, String token, long seq, Map<String, Object> data) {
+    this.type = type;
+    this.token = token;
+    this.seq = seq;
+    this.data = data;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public void setType(Type type) {
+    this.type = type;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  public long getSeq() {
+    return seq;
+  }
+
+  public void setSeq(long seq) {
+    this.seq = seq;
+  }
+
+  public Map<String, Object> getData() {
+    return data;
+  }
+
+  public void setData(Map<String, Object> data) {
+    this.data = data;
+  }
+}
@@ -0,0 +1,168 @@
+package no.itszipzon.socket.quiz;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import no.itszipzon.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Restores the quiz sessions in the journal on startup, before the server takes any traffic,
+ * and then lets each restored game carry on from where it stopped.
+ */
+@Component
+public class QuizJournalReplayer {
+
+  @Autowired
+  private QuizJournal quizJournal;
+  @Autowired
+  private QuizSessionManager quizSessionManager;
+  @Autowired
+  private QuizController quizController;
+
+  /**
+   * Replays the latest snapshot and every entry after it.
+   */
+  @PostConstruct
+  public void replay() {
+    if (!quizJournal.isEnabled()) {
+      return;
+    }
+    try {
+      for (QuizSessionSnapshot snapshot : quizJournal.readSnapshots()) {
+        restore(snapshot);
+      }
+      for (QuizJournalEntry entry : quizJournal.readEntries()) {
+        apply(entry);
+      }
+    } catch (Exception e) {
+      Logger.error("Could not replay the quiz journal: " + e.getMessage());
+    }
+    List<QuizSession> restored = new ArrayList<>(quizSessionManager.getQuizSessions());
+    for (QuizSession quizSession : restored) {
+      quizSession.getMailbox().execute(() -> quizController.resume(quizSession));
+    }
+    quizJournal.markReplayed();
+    if (!restored.isEmpty()) {
+      Logger.info("Restored " + restored.size() + " quiz sessions from the journal");
+    }
+  }
+
+  private void restore(QuizSessionSnapshot snapshot) {
+    QuizSession quizSession = quizSessionManager.restoreQuizSession(snapshot.getToken(),
+        snapshot.getLeaderUsername(), snapshot.getQuizId(), snapshot.getShuffleSeed());
+    if (quizSession == null) {
+      return;
+    }
+    quizSession.getQuiz().setTimer(snapshot.getTimer());
+    quizSession.setPlayers(snapshot.getPlayers());
+    quizSession.setLargeRoom(snapshot.isLargeRoom());
+    quizSession.setStarted(snapshot.isStarted());
+    quizSession.setState(snapshot.getState());
+    quizSession.setMessage(snapshot.getMessage());
+    quizSession.setCurrentQuestionIndex(snapshot.getCurrentQuestionIndex());
+    quizSession.getScoreEngine().restore(snapshot.getScoredRounds());
+    quizSession.setJournalSeq(snapshot.getJournalSeq());
+  }
+
+  private void apply(QuizJournalEntry entry) {
+    Map<String, Object> data = entry.getData();
+    QuizSession quizSession = quizSessionManager.getQuizSession(entry.getToken());
+    if (entry.getType() == QuizJournalEntry.Type.CREATED) {
+      if (quizSession != null) {
+        return;
+      }
+      quizSession = quizSessionManager.restoreQuizSession(entry.getToken(),
+          (String) data.get("leaderUsername"), getLong(data, "quizId"), getSeed(data, 0));
+      if (quizSession != null) {
+        quizSession.setMessage("create");
+        quizSession.addPlayer(new QuizPlayer((String) data.get("leaderUsername"),
+            getLong(data, "leaderId")));
+        quizSession.setJournalSeq(entry.getSeq());
+      }
+      return;
+    }
+    if (quizSession == null || entry.getSeq() <= quizSession.getJournalSeq()) {
+      return;
+    }
+    quizSession.setJournalSeq(entry.getSeq());
+    switch (entry.getType()) {
+      case JOINED:
+        quizSession.addPlayer(new QuizPlayer((String) data.get("username"),
+            getLong(data, "id")));
+        break;
+      case LEFT:
+        quizSession.removePlayer((String) data.get("username"));
+        break;
+      case QUIZ:
+        if (getLong(data, "quizId") != quizSession.getQuizId()
+            || getSeed(data, quizSession.getShuffleSeed()) != quizSession.getShuffleSeed()) {
+          quizSessionManager.setNewQuiz(quizSession, getLong(data, "quizId"),
+              getSeed(data, quizSession.getShuffleSeed()));
+        }
+        quizSession.getQuiz().setTimer((int) getLong(data, "timer"));
+        quizSession.setLargeRoom(Boolean.TRUE.equals(data.get("largeRoom")));
+        break;
+      case STARTED:
+        quizSession.setStarted(true);
+        quizSession.setState("start");
+        quizSession.setMessage("start");
+        break;
+      case ANSWER:
+        applyAnswer(quizSession, data);
+        break;
+      case STATE:
+        applyState(quizSession, data);
+        break;
+      case DELETED:
+        quizSessionManager.deleteQuizSession(entry.getToken());
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void applyAnswer(QuizSession quizSession, Map<String, Object> data) {
+    int questionIndex = (int) getLong(data, "questionIndex");
+    for (QuizPlayer player : quizSession.getPlayers()) {
+      if (player.getUsername().equals(data.get("username"))
+          && player.getAnswers().size() == questionIndex) {
+        QuizAnswerSocket answer = new QuizAnswerSocket((String) data.get("answer"),
+            getLong(data, "answerId"));
+        answer.setScore((int) getLong(data, "score"));
+        if (data.containsKey("time")) {
+          answer.setTime(getLong(data, "time"));
+        }
+        player.getAnswers().add(answer);
+      }
+    }
+  }
+
+  private void applyState(QuizSession quizSession, Map<String, Object> data) {
+    quizSession.setCurrentQuestionIndex((int) getLong(data, "questionIndex"));
+    quizSession.setState((String) data.get("state"));
+    quizSession.setMessage((String) data.get("message"));
+    if ("showAnswer".equals(quizSession.getMessage())) {
+      quizSession.getScoreEngine().closeRound(quizSession.getCurrentQuestionIndex(),
+          quizSession.getPlayers());
+      quizSession.setLastCorrectAnswers(quizSession.getAnswerKey()
+          .getCorrectAnswers(quizSession.getCurrentQuestionIndex()));
+    } else if ("score".equals(quizSession.getState())) {
+      quizSession.fillUnansweredWithNull();
+    }
+  }
+
+  /**
+   * Gets the seed the options were shuffled with. Entries written before the seed was journaled
+   * have none, and fall back to the given seed.
+   */
+  private long getSeed(Map<String, Object> data, long fallback) {
+    return data.containsKey("shuffleSeed") ? getLong(data, "shuffleSeed") : fallback;
+  }
+
+  private long getLong(Map<String, Object> data, String key) {
+    return ((Number) data.get(key)).longValue();
+  }
+}
@@ -0,0 +1,153 @@
+package no.itszipzon.socket.quiz;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import no.itszipzon.config.StompSubscriptionTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The quiz session meters: live and evicted sessions, connected players, the time commands spend
+ * on a session's mailbox, and the size and reach of every broadcast.
+ */
+@Component
+public class QuizMetrics {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Autowired
+  private QuizSessionStore quizSessionStore;
+  @Autowired
+  private StompSubscriptionTracker stompSubscriptionTracker;
+
+  private Timer commandTimer;
+  private Counter evictedSessions;
+  private DistributionSummary fanOut;
+  private final Map<String, BroadcastMeters> broadcastMeters = new ConcurrentHashMap<>();
+
+  /**
+   * Registers the meters.
+   */
+  @PostConstruct
+  public void init() {
+    Gauge.builder("quiz.sessions.live", quizSessionStore, QuizSessionStore::size)
+        .description("Quiz sessions owned by this node")
+        .register(meterRegistry);
+    Gauge.builder("quiz.players.connected", quizSessionStore, QuizMetrics::countPlayers)
+        .description("Players in the quiz sessions owned by this node")
+        .register(meterRegistry);
+    Gauge.builder("quiz.stomp.subscriptions", stompSubscriptionTracker,
+            StompSubscriptionTracker::getSubscriptions)
+        .description("Open STOMP subscriptions")
+        .register(meterRegistry);
+    evictedSessions = Counter.builder("quiz.sessions.evicted")
+        .description("Idle quiz sessions evicted by the reaper")
+        .register(meterRegistry);
+    commandTimer = Timer.builder("quiz.session.command")
+        .description("Time from queuing a command on a session mailbox until it has run")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    fanOut = DistributionSummary.builder("quiz.broadcast.fanout")
+        .description("Subscribers reached by a broadcast frame")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  public void recordEviction() {
+    evictedSessions.increment();
+  }
+
+  /**
+   * Wraps a mailbox command so the time it waits and runs is recorded.
+   *
+   * @param command The command.
+   * @return The timed command.
+   */
+  public Runnable timed(Runnable command) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    return () -> {
+      try {
+        command.run();
+      } finally {
+        sample.stop(commandTimer);
+      }
+    };
+  }
+
+  /**
+   * Records a frame sent to a destination. The counters are tagged with the kind of destination
+   * and the format of the frame, so JSON and binary frames can be compared. They are registered
+   * once per tag pair and reused after that.
+   *
+   * @param destination The destination.
+   * @param bytes       The size of the frame.
+   * @param format      The format of the frame, like json or cbor.
+   */
+  public void recordBroadcast(String destination, int bytes, String format) {
+    int subscribers = stompSubscriptionTracker.getSubscribers(destination);
+    String kind = getDestinationKind(destination);
+    BroadcastMeters meters = broadcastMeters.computeIfAbsent(kind + ':' + format,
+        key -> new BroadcastMeters(kind, format));
+    meters.frames.increment();
+    meters.bytes.increment(bytes);
+    meters.deliveredBytes.increment((double) bytes * subscribers);
+    fanOut.record(subscribers);
+  }
+
+  /**
+   * Gets the kind of a broadcast destination without its session token, so the tag has a small,
+   * fixed set of values.
+   */
+  private static String getDestinationKind(String destination) {
+    if (destination.contains("/events")) {
+      return "events";
+    }
+    if (destination.startsWith("/topic/quiz/game/")) {
+      return "game";
+    }
+    return "session";
+  }
+
+  private static double countPlayers(QuizSessionStore quizSessionStore) {
+    int players = 0;
+    for (QuizSession quizSession : quizSessionStore.values()) {
+      players += quizSession.getPlayers().size();
+    }
+    return players;
+  }
+
+  /**
+   * The counters for one kind of destination and frame format.
+   */
+  private final class BroadcastMeters {
+    private final Counter frames;
+    private final Counter bytes;
+    private final Counter deliveredBytes;
+
+    private BroadcastMeters(String kind, String format) {
+      frames = Counter.builder("quiz.broadcast.frames")
+          .description("Frames handed to the broker")
+          .tag("destination", kind)
+          .tag("format", format)
+          .register(meterRegistry);
+      bytes = Counter.builder("quiz.broadcast.bytes")
+          .description("Bytes rendered for broadcast frames")
+          .baseUnit("bytes")
+          .tag("destination", kind)
+          .tag("format", format)
+          .register(meterRegistry);
+      deliveredBytes = Counter.builder("quiz.broadcast.delivered.bytes")
+          .description("Bytes delivered to subscribers, counting every subscriber")
+          .baseUnit("bytes")
+          .tag("destination", kind)
+          .tag("format", format)
+          .register(meterRegistry);
+    }
+  }
+}
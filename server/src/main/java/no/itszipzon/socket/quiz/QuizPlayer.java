@@ -13,6 +13,7 @@ public class QuizPlayer {
   private List<QuizAnswerSocket> answers;
   private int score;
   private int amountOfCorrectAnswers;
+  private long answerTime;
 
   public QuizPlayer() {
   }
@@ -70,4 +71,18 @@ public class QuizPlayer {
     this.amountOfCorrectAnswers = amountOfCorrectAnswers;
   }
 
+  /**
+   * Gets the total time the player spent on their correct answers, which breaks ties between
+   * players with the same score.
+   *
+   * @return The time in milliseconds.
+   */
+  public long getAnswerTime() {
+    return answerTime;
+  }
+
+  public void setAnswerTime(long answerTime) {
+    this.answerTime = answerTime;
+  }
+
 }
@@ -0,0 +1,100 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import no.itszipzon.RankedTree;
+
+/**
+ * The live ranking of the players in a quiz session, ordered by score and then by the time they
+ * spent on their correct answers.
+ *
+ * <p>It is updated whenever a player joins, leaves or scores, so the leaderboard and the rank of
+ * any player can be read without sorting the players. Must only be used from the session's
+ * mailbox.
+ */
+public class QuizRanking {
+
+  private static final Comparator<Entry> ORDER = Comparator
+      .comparingInt((Entry entry) -> entry.score).reversed()
+      .thenComparingLong(entry -> entry.answerTime)
+      .thenComparing(entry -> entry.username);
+
+  private final RankedTree<Entry> tree = new RankedTree<>(ORDER);
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  /**
+   * Adds a player, or moves a player to match their current score.
+   *
+   * @param player The player.
+   */
+  public void update(QuizPlayer player) {
+    Entry entry = new Entry(player.getUsername(), player.getScore(), player.getAnswerTime());
+    Entry previous = entries.put(player.getUsername(), entry);
+    if (previous != null) {
+      tree.remove(previous);
+    }
+    tree.insert(entry);
+  }
+
+  /**
+   * Removes a player.
+   *
+   * @param username The username of the player.
+   */
+  public void remove(String username) {
+    Entry previous = entries.remove(username);
+    if (previous != null) {
+      tree.remove(previous);
+    }
+  }
+
+  /**
+   * Gets the rank of a player.
+   *
+   * @param username The username of the player.
+   * @return The rank, starting at 1, or 0 if the player is not ranked.
+   */
+  public int getRank(String username) {
+    Entry entry = entries.get(username);
+    return entry == null ? 0 : tree.indexOf(entry) + 1;
+  }
+
+  /**
+   * Gets the best players.
+   *
+   * @param size The amount of players.
+   * @return The best players, best first, with their rank, username and score.
+   */
+  public List<Map<String, Object>> top(int size) {
+    List<Entry> best = tree.first(size);
+    List<Map<String, Object>> leaderboard = new ArrayList<>(best.size());
+    for (int i = 0; i < best.size(); i++) {
+      Map<String, Object> row = new HashMap<>();
+      row.put("rank", i + 1);
+      row.put("username", best.get(i).username);
+      row.put("score", best.get(i).score);
+      leaderboard.add(row);
+    }
+    return leaderboard;
+  }
+
+  public void clear() {
+    tree.clear();
+    entries.clear();
+  }
+
+  private static final class Entry {
+    private final String username;
+    private final int score;
+    private final long answerTime;
+
+    private Entry(String username, int score, long answerTime) {
+      this.username = username;
+      this.score = score;
+      this.answerTime = answerTime;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import no.itszipzon.dto.QuizQuestionDto;
+
+/**
+ * An immutable copy of the outcome of a finished quiz session.
+ *
+ * <p>It is taken on the session's mailbox when the game ends, so it can be persisted on another
+ * thread after the session itself is gone.
+ */
+public final class QuizResult {
+
+  private final long quizId;
+  private final String ownerUsername;
+  private final int amountOfQuestions;
+  private final List<Long> questionIds;
+  private final List<PlayerResult> players;
+
+  private QuizResult(long quizId, String ownerUsername, int amountOfQuestions,
+      List<Long> questionIds, List<PlayerResult> players) {
+    this.quizId = quizId;
+    this.ownerUsername = ownerUsername;
+    this.amountOfQuestions = amountOfQuestions;
+    this.questionIds = Collections.unmodifiableList(questionIds);
+    this.players = Collections.unmodifiableList(players);
+  }
+
+  /**
+   * Takes the result of a quiz session. Must be called from the session's mailbox.
+   *
+   * @param quizSession The finished quiz session.
+   * @return The result.
+   */
+  public static QuizResult of(QuizSession quizSession) {
+    List<Long> questionIds = new ArrayList<>();
+    for (QuizQuestionDto question : quizSession.getQuiz().getQuizQuestions()) {
+      questionIds.add(question.getId());
+    }
+    List<PlayerResult> players = new ArrayList<>();
+    for (QuizPlayer player : quizSession.getPlayers()) {
+      List<Long> optionIds = new ArrayList<>();
+      for (int i = 0; i < questionIds.size(); i++) {
+        optionIds.add(i < player.getAnswers().size() ? player.getAnswers().get(i).getId() : null);
+      }
+      players.add(new PlayerResult(player.getId(), player.getUsername(), player.getScore(),
+          player.getAmountOfCorrectAnswers(), optionIds));
+    }
+    return new QuizResult(quizSession.getQuiz().getId(), quizSession.getQuiz().getUsername(),
+        quizSession.getAmountOfQuestions(), questionIds, players);
+  }
+
+  public long getQuizId() {
+    return quizId;
+  }
+
+  public String getOwnerUsername() {
+    return ownerUsername;
+  }
+
+  public int getAmountOfQuestions() {
+    return amountOfQuestions;
+  }
+
+  public List<Long> getQuestionIds() {
+    return questionIds;
+  }
+
+  public List<PlayerResult> getPlayers() {
+    return players;
+  }
+
+  /**
+   * The outcome of one player.
+   */
+  public static final class PlayerResult {
+
+    private final Long id;
+    private final String username;
+    private final int score;
+    private final int amountOfCorrectAnswers;
+    private final List<Long> optionIds;
+
+    private PlayerResult(Long id, String username, int score, int amountOfCorrectAnswers,
+        List<Long> optionIds) {
+      this.id = id;
+      this.username = username;
+      this.score = score;
+      this.amountOfCorrectAnswers = amountOfCorrectAnswers;
+      this.optionIds = Collections.unmodifiableList(optionIds);
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public int getScore() {
+      return score;
+    }
+
+    public int getAmountOfCorrectAnswers() {
+      return amountOfCorrectAnswers;
+    }
+
+    /**
+     * Gets the chosen option for each question, in question order.
+     *
+     * @return The option ids, with null where the player did not answer.
+     */
+    public List<Long> getOptionIds() {
+      return optionIds;
+    }
+  }
+}
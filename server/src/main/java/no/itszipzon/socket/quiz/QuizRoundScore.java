@@ -0,0 +1,81 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The score changes of a single question round.
+ */
+public class QuizRoundScore {
+
+  private final int questionIndex;
+  private final List<PlayerDelta> deltas;
+
+  /**
+   * Constructor for a round score.
+   *
+   * @param questionIndex The index of the question the round belongs to.
+   * @param deltas        The score change of each player.
+   */
+  public QuizRoundScore(int questionIndex, List<PlayerDelta> deltas) {
+    this.questionIndex = questionIndex;
+    this.deltas = Collections.unmodifiableList(deltas);
+  }
+
+  public int getQuestionIndex() {
+    return questionIndex;
+  }
+
+  public List<PlayerDelta> getDeltas() {
+    return deltas;
+  }
+
+  /**
+   * The score change of one player in a round.
+   */
+  public static class PlayerDelta {
+
+    private final String username;
+    private final int points;
+    private final boolean correct;
+    private final int score;
+    private final int rank;
+
+    /**
+     * Constructor for a player delta.
+     *
+     * @param username The username of the player.
+     * @param points   The points gained this round.
+     * @param correct  Whether the player answered correctly.
+     * @param score    The total score of the player after the round.
+     * @param rank     The rank of the player after the round.
+     */
+    public PlayerDelta(String username, int points, boolean correct, int score, int rank) {
+      this.username = username;
+      this.points = points;
+      this.correct = correct;
+      this.score = score;
+      this.rank = rank;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public int getPoints() {
+      return points;
+    }
+
+    public boolean isCorrect() {
+      return correct;
+    }
+
+    public int getScore() {
+      return score;
+    }
+
+    public int getRank() {
+      return rank;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the running scores of a quiz session.
+ *
+ * <p>Each question round is folded into the players' totals exactly once, when the question
+ * closes, so closing a round only looks at one answer per player instead of their whole history.
+ */
+public class QuizScoreEngine {
+
+  private final QuizAnswerKey answerKey;
+  private final QuizRanking ranking;
+  private int scoredRounds;
+  private QuizRoundScore lastRound;
+
+  /**
+   * Constructor for a score engine.
+   *
+   * @param answerKey The answer key of the quiz.
+   * @param ranking   The ranking to move players in as they score.
+   */
+  public QuizScoreEngine(QuizAnswerKey answerKey, QuizRanking ranking) {
+    this.answerKey = answerKey;
+    this.ranking = ranking;
+    this.scoredRounds = 0;
+  }
+
+  /**
+   * Folds every round up to and including a question into the players' totals. Rounds that have
+   * already been scored are never counted again.
+   *
+   * @param questionIndex The index of the question that closed.
+   * @param players       The players in the session.
+   * @return The score change of the closed round.
+   */
+  public QuizRoundScore closeRound(int questionIndex, List<QuizPlayer> players) {
+    while (scoredRounds <= questionIndex) {
+      lastRound = scoreRound(scoredRounds, players);
+      scoredRounds++;
+    }
+    return lastRound;
+  }
+
+  /**
+   * Continues scoring after rounds that were already folded into the players' totals, like when
+   * a session is restored from the journal.
+   *
+   * @param scoredRounds The amount of rounds already scored.
+   */
+  public void restore(int scoredRounds) {
+    this.scoredRounds = scoredRounds;
+  }
+
+  public QuizRoundScore getLastRound() {
+    return lastRound;
+  }
+
+  public int getScoredRounds() {
+    return scoredRounds;
+  }
+
+  private QuizRoundScore scoreRound(int questionIndex, List<QuizPlayer> players) {
+    int[] points = new int[players.size()];
+    boolean[] correct = new boolean[players.size()];
+    for (int i = 0; i < players.size(); i++) {
+      QuizPlayer player = players.get(i);
+      QuizAnswerSocket answer = questionIndex < player.getAnswers().size()
+          ? player.getAnswers().get(questionIndex)
+          : null;
+      correct[i] = answer != null && answer.getAnswer() != null
+          && answerKey.isCorrect(questionIndex, answer.getId());
+      if (correct[i]) {
+        points[i] = answer.getScore();
+        player.setScore(player.getScore() + points[i]);
+        player.setAmountOfCorrectAnswers(player.getAmountOfCorrectAnswers() + 1);
+        player.setAnswerTime(player.getAnswerTime() + answer.getTime());
+        ranking.update(player);
+      }
+    }
+    List<QuizRoundScore.PlayerDelta> deltas = new ArrayList<>(players.size());
+    for (int i = 0; i < players.size(); i++) {
+      QuizPlayer player = players.get(i);
+      deltas.add(new QuizRoundScore.PlayerDelta(player.getUsername(), points[i], correct[i],
+          player.getScore(), ranking.getRank(player.getUsername())));
+    }
+    return new QuizRoundScore(questionIndex, deltas);
+  }
+}
@@ -1,10 +1,15 @@
 package no.itszipzon.socket.quiz;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import no.itszipzon.dto.QuizOptionDto;
 import no.itszipzon.dto.QuizQuestionDto;
 import no.itszipzon.dto.QuizWithQuestionsDto;
 
@@ -24,7 +29,32 @@ public class QuizSession {
   private int amountOfQuestions;
   private String state;
   private List<Long> lastCorrectAnswers;
-  private LocalDateTime questionStartTime;
+  private long questionStartTime;
+  private boolean largeRoom;
+  @JsonIgnore
+  private long shuffleSeed;
+  @JsonIgnore
+  private Map<String, QuizPlayer> playerIndex = new HashMap<>();
+  @JsonIgnore
+  private QuizRanking ranking = new QuizRanking();
+  @JsonIgnore
+  private QuizAnswerStats answerStats;
+  @JsonIgnore
+  private boolean aggregatePending;
+  @JsonIgnore
+  private QuizAnswerKey answerKey;
+  @JsonIgnore
+  private QuizScoreEngine scoreEngine;
+  @JsonIgnore
+  private QuizSessionMailbox mailbox;
+  @JsonIgnore
+  private QuizTimerWheel.Timeout pendingTransition;
+  private long transition;
+  private long seq;
+  private long journalSeq;
+  private volatile long lastActivity = System.currentTimeMillis();
+  @JsonIgnore
+  private QuizFrameCache frameCache = new QuizFrameCache();
 
   public QuizSession() {
 
@@ -67,8 +97,19 @@ public class QuizSession {
     return players;
   }
 
+  /**
+   * Sets the players of the quiz session.
+   *
+   * @param players The players.
+   */
   public void setPlayers(List<QuizPlayer> players) {
     this.players = players;
+    this.playerIndex = new HashMap<>();
+    this.ranking.clear();
+    for (QuizPlayer player : players) {
+      playerIndex.put(player.getUsername(), player);
+      ranking.update(player);
+    }
   }
 
   /**
@@ -77,27 +118,56 @@ public class QuizSession {
    * @param player The player.
    */
   public void addPlayer(QuizPlayer player) {
-    if (this.players.stream().anyMatch(p -> p.getUsername().equals(player.getUsername()))) {
+    if (playerIndex.putIfAbsent(player.getUsername(), player) != null) {
       return;
     }
     this.players.add(player);
+    ranking.update(player);
   }
 
   public void addPlayer(String playerName, Long id) {
-    this.players.add(new QuizPlayer(playerName, id));
+    addPlayer(new QuizPlayer(playerName, id));
   }
 
   public void removePlayer(QuizPlayer player) {
-    this.players.remove(player);
+    removePlayer(player.getUsername());
   }
 
   /**
-   * Adds a player to the quiz session.
+   * Removes a player from the quiz session.
    *
    * @param playerName The username of the player.
    */
   public void removePlayer(String playerName) {
-    players.removeIf(player -> player.getUsername().equals(playerName));
+    if (playerIndex.remove(playerName) != null) {
+      ranking.remove(playerName);
+      players.removeIf(player -> player.getUsername().equals(playerName));
+    }
+  }
+
+  /**
+   * Gets a player in the quiz session.
+   *
+   * @param playerName The username of the player.
+   * @return The player, or null if the player is not in the session.
+   */
+  public QuizPlayer getPlayer(String playerName) {
+    return playerIndex.get(playerName);
+  }
+
+  /**
+   * Checks if the session runs in large room mode. A large room never sends the full player
+   * list; subscribers get aggregated answer counts and a bounded leaderboard instead, and each
+   * player gets their own result on their user queue.
+   *
+   * @return true if the session is a large room.
+   */
+  public boolean isLargeRoom() {
+    return largeRoom;
+  }
+
+  public void setLargeRoom(boolean largeRoom) {
+    this.largeRoom = largeRoom;
   }
 
   public QuizWithQuestionsDto getQuiz() {
@@ -105,18 +175,57 @@ public class QuizSession {
   }
 
   /**
-   * Sets the quiz for the quiz session.
+   * Sets the quiz for the quiz session, with the options of every question in a new random
+   * order.
    *
    * @param quiz The quiz.
    */
   public void setQuiz(QuizWithQuestionsDto quiz) {
+    setQuiz(quiz, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Sets the quiz for the quiz session, with the options of every question in the order given by
+   * a seed. The options are sorted by ID before they are shuffled, so the same seed gives the
+   * same order however the quiz was loaded; the seed is journaled so a restored session shows
+   * the options in the order the players already saw.
+   *
+   * @param quiz        The quiz.
+   * @param shuffleSeed The seed for the order of the options.
+   */
+  public void setQuiz(QuizWithQuestionsDto quiz, long shuffleSeed) {
+    Random random = new Random(shuffleSeed);
     for (QuizQuestionDto question : quiz.getQuizQuestions()) {
-      Collections.shuffle(question.getQuizOptions());
+      question.getQuizOptions().sort(Comparator.comparingLong(QuizOptionDto::getId));
+      Collections.shuffle(question.getQuizOptions(), random);
     }
+    this.shuffleSeed = shuffleSeed;
     this.quiz = quiz;
+    this.answerKey = QuizAnswerKey.of(quiz);
+    this.scoreEngine = new QuizScoreEngine(answerKey, ranking);
     this.amountOfQuestions = quiz.getQuizQuestions().size();
   }
 
+  @JsonIgnore
+  public long getShuffleSeed() {
+    return shuffleSeed;
+  }
+
+  @JsonIgnore
+  public QuizAnswerKey getAnswerKey() {
+    return answerKey;
+  }
+
+  @JsonIgnore
+  public QuizScoreEngine getScoreEngine() {
+    return scoreEngine;
+  }
+
+  @JsonIgnore
+  public QuizRanking getRanking() {
+    return ranking;
+  }
+
   public String getMessage() {
     return message;
   }
@@ -192,14 +301,159 @@ public class QuizSession {
     this.lastCorrectAnswers = lastCorrectAnswers;
   }
 
+  @JsonIgnore
+  public QuizSessionMailbox getMailbox() {
+    return mailbox;
+  }
+
+  public void setMailbox(QuizSessionMailbox mailbox) {
+    this.mailbox = mailbox;
+  }
+
+  @JsonIgnore
+  public QuizTimerWheel.Timeout getPendingTransition() {
+    return pendingTransition;
+  }
+
+  public void setPendingTransition(QuizTimerWheel.Timeout pendingTransition) {
+    this.pendingTransition = pendingTransition;
+  }
+
+  /**
+   * Starts a new transition, making any transition scheduled before it stale.
+   *
+   * @return The id of the new transition.
+   */
+  public long nextTransition() {
+    return ++transition;
+  }
+
+  @JsonIgnore
+  public long getTransition() {
+    return transition;
+  }
+
+  /**
+   * Gets the sequence number of the last game event published for the session.
+   *
+   * @return The sequence number.
+   */
+  @JsonIgnore
+  public long getSeq() {
+    return seq;
+  }
+
+  @JsonIgnore
+  public QuizFrameCache getFrameCache() {
+    return frameCache;
+  }
+
+  /**
+   * Advances the sequence number for a new game event.
+   *
+   * @return The sequence number of the new event.
+   */
+  public long nextSeq() {
+    return ++seq;
+  }
+
+  @JsonIgnore
+  public long getJournalSeq() {
+    return journalSeq;
+  }
+
+  public void setJournalSeq(long journalSeq) {
+    this.journalSeq = journalSeq;
+  }
+
+  /**
+   * Advances the journal sequence number for a new journal entry.
+   *
+   * @return The sequence number of the new entry.
+   */
+  public long nextJournalSeq() {
+    return ++journalSeq;
+  }
+
+  /**
+   * Gives every player who did not answer the current question an empty answer.
+   */
+  public void fillUnansweredWithNull() {
+    for (QuizPlayer player : players) {
+      while (player.getAnswers().size() <= currentQuestionIndex) {
+        player.getAnswers().add(new QuizAnswerSocket(null, null));
+      }
+    }
+  }
+
+  /**
+   * Marks the session as active now.
+   */
+  public void touch() {
+    this.lastActivity = System.currentTimeMillis();
+  }
+
+  /**
+   * Gets the last time a player or a timer acted on the session. Safe to read from any thread.
+   *
+   * @return The time in milliseconds since the epoch.
+   */
+  @JsonIgnore
+  public long getLastActivity() {
+    return lastActivity;
+  }
+
+  /**
+   * Marks the moment the current question was opened by the server, and starts counting its
+   * answers. Answers already given to the question, like after a restore, are counted without a
+   * response time.
+   */
   public void initQuestionStartTime() {
-    System.out.println("Init question start time");
-    this.questionStartTime = LocalDateTime.now();
+    this.questionStartTime = System.nanoTime();
+    QuizQuestionDto question = getCurrentQuestion();
+    if (question == null) {
+      this.answerStats = null;
+      return;
+    }
+    this.answerStats = new QuizAnswerStats(currentQuestionIndex, question, quiz.getTimer());
+    for (QuizPlayer player : players) {
+      if (player.getAnswers().size() > currentQuestionIndex
+          && player.getAnswers().get(currentQuestionIndex).getId() != null) {
+        answerStats.restore(player.getAnswers().get(currentQuestionIndex).getId());
+      }
+    }
   }
 
+  /**
+   * Gets the answer counts of the current question.
+   *
+   * @return The answer counts, or null if no question has been opened.
+   */
+  @JsonIgnore
+  public QuizAnswerStats getAnswerStats() {
+    return answerStats;
+  }
+
+  @JsonIgnore
+  public boolean isAggregatePending() {
+    return aggregatePending;
+  }
+
+  public void setAggregatePending(boolean aggregatePending) {
+    this.aggregatePending = aggregatePending;
+  }
+
+  /**
+   * Gets the time since the current question was opened.
+   *
+   * @return The time in seconds.
+   */
+  @JsonIgnore
   public double getQuestionTime() {
-    Duration duration = questionStartTime == null ? Duration.ofSeconds(1) : Duration.between(questionStartTime, LocalDateTime.now());
-    return duration.toMillis() / 1000;
+    if (questionStartTime == 0) {
+      return 1;
+    }
+    return (System.nanoTime() - questionStartTime) / 1_000_000_000.0;
   }
 
 }
@@ -0,0 +1,139 @@
+package no.itszipzon.socket.quiz;
+
+import java.security.SecureRandom;
+import java.util.BitSet;
+import no.itszipzon.Tools;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out the five character codes players use to join a quiz session.
+ *
+ * <p>Codes are drawn from a keyed permutation of the whole code space: the n-th code handed out
+ * is a four round Feistel network applied to n, walked until it lands inside the space. Every
+ * fresh code is therefore different from the ones before it, looks random, and costs the same to
+ * find no matter how many lobbies are open. Released codes are kept aside and only handed out
+ * again once the fresh codes run out, so a stale link does not land in a stranger's lobby.
+ *
+ * <p>Released codes are marked in a bit set over the code space, so they take at most one bit
+ * per code however often they are released, and a code released twice is still only handed out
+ * once.
+ */
+@Component
+public class QuizSessionCodes {
+
+  private static final String CHARACTERS = Tools.TOKEN_CHARACTERS;
+  private static final int LENGTH = 5;
+  private static final int SPACE = pow(CHARACTERS.length(), LENGTH);
+  private static final int HALF_BITS = (32 - Integer.numberOfLeadingZeros(SPACE - 1) + 1) / 2;
+  private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+  private static final int ROUNDS = 4;
+
+  private final int[] keys = new int[ROUNDS];
+  private final BitSet released = new BitSet();
+  private int next;
+  private int reuse;
+
+  /**
+   * Constructor for the code allocator. The permutation is keyed from the shared secure random,
+   * so codes cannot be predicted from one another.
+   */
+  public QuizSessionCodes() {
+    SecureRandom random = Tools.getSecureRandom();
+    for (int i = 0; i < ROUNDS; i++) {
+      keys[i] = random.nextInt();
+    }
+  }
+
+  QuizSessionCodes(int next) {
+    this();
+    this.next = next;
+  }
+
+  /**
+   * Allocates a code.
+   *
+   * @return The code, or null if every code is in use.
+   */
+  public synchronized String allocate() {
+    if (next < SPACE) {
+      int code = permute(next++);
+      released.clear(code);
+      return encode(code);
+    }
+    int code = released.nextSetBit(reuse);
+    if (code < 0) {
+      code = released.nextSetBit(0);
+      if (code < 0) {
+        return null;
+      }
+    }
+    released.clear(code);
+    reuse = code + 1;
+    return encode(code);
+  }
+
+  /**
+   * Gives a code back so it can be allocated again. Codes that were not made by an allocator
+   * are ignored.
+   *
+   * @param token The code.
+   */
+  public synchronized void release(String token) {
+    int code = decode(token);
+    if (code >= 0) {
+      released.set(code);
+    }
+  }
+
+  private int permute(int index) {
+    int value = index;
+    do {
+      value = feistel(value);
+    } while (value >= SPACE);
+    return value;
+  }
+
+  private int feistel(int value) {
+    int left = value >>> HALF_BITS;
+    int right = value & HALF_MASK;
+    for (int key : keys) {
+      int mixed = (right * 0x9E3779B1 ^ key) * 0x85EBCA6B;
+      int round = left ^ ((mixed ^ (mixed >>> 15)) & HALF_MASK);
+      left = right;
+      right = round;
+    }
+    return (left << HALF_BITS) | right;
+  }
+
+  private static String encode(int code) {
+    char[] token = new char[LENGTH];
+    for (int i = LENGTH - 1; i >= 0; i--) {
+      token[i] = CHARACTERS.charAt(code % CHARACTERS.length());
+      code /= CHARACTERS.length();
+    }
+    return new String(token);
+  }
+
+  private static int decode(String token) {
+    if (token == null || token.length() != LENGTH) {
+      return -1;
+    }
+    int code = 0;
+    for (int i = 0; i < LENGTH; i++) {
+      int digit = CHARACTERS.indexOf(token.charAt(i));
+      if (digit < 0) {
+        return -1;
+      }
+      code = code * CHARACTERS.length() + digit;
+    }
+    return code;
+  }
+
+  private static int pow(int base, int exponent) {
+    int result = 1;
+    for (int i = 0; i < exponent; i++) {
+      result *= base;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,76 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import no.itszipzon.Logger;
+
+/**
+ * A serialized mailbox for a single quiz session.
+ *
+ * <p>Commands are queued and run one at a time, in the order they arrived, on a shared
+ * executor. Only one thread drains the mailbox at any time, so the session state it guards never
+ * needs locking.
+ */
+public class QuizSessionMailbox implements Executor {
+
+  private static final int MAX_BATCH = 64;
+
+  private final Queue<Runnable> commands;
+  private final AtomicBoolean scheduled;
+  private final Executor executor;
+
+  /**
+   * Constructor for a quiz session mailbox.
+   *
+   * @param executor The shared executor the mailbox is drained on.
+   */
+  public QuizSessionMailbox(Executor executor) {
+    this.commands = new ConcurrentLinkedQueue<>();
+    this.scheduled = new AtomicBoolean(false);
+    this.executor = executor;
+  }
+
+  /**
+   * Queues a command for the session.
+   *
+   * @param command The command to run.
+   */
+  @Override
+  public void execute(Runnable command) {
+    commands.add(command);
+    schedule();
+  }
+
+  public int getPendingCommands() {
+    return commands.size();
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    try {
+      Runnable command;
+      int processed = 0;
+      while (processed < MAX_BATCH && (command = commands.poll()) != null) {
+        try {
+          command.run();
+        } catch (Exception e) {
+          Logger.error("Quiz session command failed: " + e.getMessage());
+          e.printStackTrace();
+        }
+        processed++;
+      }
+    } finally {
+      scheduled.set(false);
+      if (!commands.isEmpty()) {
+        schedule();
+      }
+    }
+  }
+}
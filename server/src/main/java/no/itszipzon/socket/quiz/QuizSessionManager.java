@@ -1,14 +1,21 @@
 package no.itszipzon.socket.quiz;
 
 import io.jsonwebtoken.Claims;
+import jakarta.annotation.PreDestroy;
+import java.security.Principal;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import no.itszipzon.DtoParser;
-import no.itszipzon.Tools;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import no.itszipzon.config.JwtUtil;
-import no.itszipzon.repo.QuizRepo;
-import no.itszipzon.tables.Quiz;
+import no.itszipzon.config.UserPrincipal;
+import no.itszipzon.dto.QuizWithQuestionsDto;
+import no.itszipzon.service.QuizPackageCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -18,86 +25,283 @@ import org.springframework.stereotype.Service;
 @Service
 public class QuizSessionManager {
 
-  private Map<String, QuizSession> quizSessions;
+  private ExecutorService sessionExecutor;
+  private QuizTimerWheel timerWheel;
 
   @Autowired
-  private QuizRepo quizRepo;
+  private QuizSessionStore quizSessionStore;
+
+  @Autowired
+  private QuizJournal quizJournal;
+
+  @Autowired
+  private QuizPackageCache quizPackageCache;
 
   @Autowired
   private JwtUtil jwtUtil;
 
+  @Autowired
+  private QuizMetrics quizMetrics;
+
+  @Autowired
+  private QuizSessionCodes quizSessionCodes;
+
+  /**
+   * Constructor for the quiz session manager.
+   */
   public QuizSessionManager() {
-    quizSessions = new ConcurrentHashMap<>();
+    AtomicInteger threadCount = new AtomicInteger();
+    sessionExecutor = Executors.newFixedThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+          Thread thread = new Thread(runnable, "quiz-session-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    timerWheel = new QuizTimerWheel(100, TimeUnit.MILLISECONDS, 512);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timerWheel.shutdown();
+    sessionExecutor.shutdown();
   }
 
   /**
    * Creates a quiz session.
    *
-   * @param message The message containing the quiz ID and the username.
+   * @param leader The player creating the session.
+   * @param quizId The ID of the quiz.
    * @return The token for the quiz session.
    */
-  public String createQuizSession(QuizMessage message) {
+  public String createQuizSession(QuizPlayer leader, int quizId) {
 
-    Claims claims = jwtUtil.extractClaims(message.getUserToken());
-
-    QuizSession quizSession = new QuizSession(claims.getSubject(), message.getQuizId());
+    QuizSession quizSession = new QuizSession(leader.getUsername(), quizId);
+    quizSession.setMailbox(new QuizSessionMailbox(sessionExecutor));
     quizSession.setMessage("create");
-    quizSession.addPlayer(new QuizPlayer(claims.getSubject(), claims.get("id", Long.class)));
+    quizSession.addPlayer(leader);
 
-    Optional<Quiz> quiz = quizRepo.findById((long) message.getQuizId());
+    Optional<QuizWithQuestionsDto> quiz = quizPackageCache.get(quizId);
 
     if (quiz.isPresent()) {
-      quizSession.setQuiz(DtoParser.mapToQuizWithQuestionsDto(quiz.get(), quizRepo));
+      quizSession.setQuiz(quiz.get());
     } else {
       return null;
     }
 
-    int idLength = 5;
-    String token = Tools.generateToken(idLength);
-    while (quizSessions.containsKey(token)) {
-      token = Tools.generateToken(idLength);
-    }
-    quizSessions.put(token, quizSession);
+    // A code can still be taken by a session restored from the journal or owned by another
+    // node; that session gives the code back when it is deleted.
+    String token;
+    do {
+      token = quizSessionCodes.allocate();
+      if (token == null) {
+        return null;
+      }
+      quizSession.setToken(token);
+    } while (!quizSessionStore.putIfAbsent(token, quizSession));
+    Map<String, Object> created = Map.of(
+        "leaderUsername", leader.getUsername(),
+        "leaderId", leader.getId(),
+        "quizId", (long) quizId,
+        "shuffleSeed", quizSession.getShuffleSeed());
+    quizSession.getMailbox().execute(
+        () -> quizJournal.append(quizSession, QuizJournalEntry.Type.CREATED, created));
     return token;
   }
 
   /**
-   * Gets a player.
+   * Restores a quiz session from the journal under its old token. The players and the progress
+   * of the session are restored by the caller.
    *
-   * @param token The token for the quiz session.
+   * @param token          The token for the quiz session.
+   * @param leaderUsername The username of the leader.
+   * @param quizId         The ID of the quiz.
+   * @param shuffleSeed    The seed the options were shuffled with.
+   * @return The session, or null if the quiz no longer exists or the token is taken.
+   */
+  public QuizSession restoreQuizSession(String token, String leaderUsername, long quizId,
+      long shuffleSeed) {
+    Optional<QuizWithQuestionsDto> quiz = quizPackageCache.get(quizId);
+    if (quiz.isEmpty()) {
+      return null;
+    }
+    QuizSession quizSession = new QuizSession(leaderUsername, (int) quizId);
+    quizSession.setMailbox(new QuizSessionMailbox(sessionExecutor));
+    quizSession.setQuiz(quiz.get(), shuffleSeed);
+    quizSession.setToken(token);
+    return quizSessionStore.putIfAbsent(token, quizSession) ? quizSession : null;
+  }
+
+  /**
+   * Queues a command on the mailbox of a quiz session. The command runs on the session's own
+   * serialized executor, so it is the only code touching the session while it runs.
+   *
+   * @param token   The token for the quiz session.
+   * @param command The command to run against the session.
+   * @return false if the session does not exist.
+   */
+  public boolean dispatch(String token, Consumer<QuizSession> command) {
+    QuizSession quizSession = token == null ? null : quizSessionStore.get(token);
+    if (quizSession == null) {
+      return false;
+    }
+    quizSession.touch();
+    quizSession.getMailbox().execute(quizMetrics.timed(() -> command.accept(quizSession)));
+    return true;
+  }
+
+  /**
+   * Gets the player behind a message. The principal bound to the connection is used when the
+   * client authenticated on connect; otherwise the token sent with the message is checked.
+   *
+   * @param principal The user of the connection, or null.
+   * @param userToken The token sent with the message.
+   * @return The player, or null if the user could not be authenticated.
    */
-  public QuizPlayer getPlayer(String token) {
-    Claims claims = jwtUtil.extractClaims(token);
+  public QuizPlayer getPlayer(Principal principal, String userToken) {
+    if (principal instanceof UserPrincipal user) {
+      return new QuizPlayer(user.getName(), user.getId());
+    }
+    Claims claims = userToken == null ? null : jwtUtil.extractClaims(userToken);
+    if (claims == null) {
+      return null;
+    }
     return new QuizPlayer(claims.getSubject(), claims.get("id", Long.class));
   }
 
+  /**
+   * Schedules the next state transition of a quiz session on the shared timer wheel. Any
+   * transition scheduled earlier for the session is cancelled. Must be called from the session's
+   * mailbox.
+   *
+   * @param quizSession The quiz session.
+   * @param delay       The delay before the transition.
+   * @param unit        The unit of the delay.
+   * @param command     The transition, run on the session's mailbox.
+   */
+  public void scheduleTransition(QuizSession quizSession, long delay, TimeUnit unit,
+      Consumer<QuizSession> command) {
+    cancelTransition(quizSession);
+    long transition = quizSession.getTransition();
+    Runnable fire = () -> {
+      if (quizSession.getTransition() == transition
+          && quizSessionStore.get(quizSession.getToken()) == quizSession) {
+        quizSession.touch();
+        quizSession.setPendingTransition(null);
+        command.accept(quizSession);
+      }
+    };
+    quizSession.setPendingTransition(
+        timerWheel.schedule(() -> quizSession.getMailbox().execute(fire), delay, unit));
+  }
+
+  /**
+   * Schedules a command on the mailbox of a quiz session, without touching its state
+   * transitions. The command is dropped if the session has been deleted by then.
+   *
+   * @param quizSession The quiz session.
+   * @param delay       The delay before the command.
+   * @param unit        The unit of the delay.
+   * @param command     The command, run on the session's mailbox.
+   */
+  public void schedule(QuizSession quizSession, long delay, TimeUnit unit,
+      Consumer<QuizSession> command) {
+    timerWheel.schedule(() -> quizSession.getMailbox().execute(() -> {
+      if (quizSessionStore.get(quizSession.getToken()) == quizSession) {
+        command.accept(quizSession);
+      }
+    }), delay, unit);
+  }
+
+  /**
+   * Cancels the pending state transition of a quiz session. Must be called from the session's
+   * mailbox.
+   *
+   * @param quizSession The quiz session.
+   */
+  public void cancelTransition(QuizSession quizSession) {
+    quizSession.nextTransition();
+    if (quizSession.getPendingTransition() != null) {
+      quizSession.getPendingTransition().cancel();
+      quizSession.setPendingTransition(null);
+    }
+  }
+
+  /**
+   * Deletes a quiz session. Its pending transition is cancelled, including one that already
+   * fired and is waiting on the mailbox. Must be called from the session's mailbox.
+   *
+   * @param token The token for the quiz session.
+   */
   public void deleteQuizSession(String token) {
-    quizSessions.remove(token);
+    QuizSession quizSession = quizSessionStore.remove(token);
+    if (quizSession == null) {
+      return;
+    }
+    cancelTransition(quizSession);
+    quizSessionCodes.release(token);
+    quizJournal.append(quizSession, QuizJournalEntry.Type.DELETED, Map.of());
   }
 
   public QuizSession getQuizSession(String token) {
-    return quizSessions.get(token);
+    return quizSessionStore.get(token);
   }
 
   public boolean quizSessionExists(String token) {
-    return quizSessions.containsKey(token);
+    return quizSessionStore.get(token) != null;
+  }
+
+  /**
+   * Finds the node that owns a quiz session.
+   *
+   * @param token The token for the quiz session.
+   * @return The owner, or null if no live node owns the session.
+   */
+  public QuizSessionOwner findOwner(String token) {
+    return quizSessionStore.findOwner(token);
+  }
+
+  /**
+   * Gets a weakly consistent view of the live quiz sessions.
+   *
+   * @return The quiz sessions.
+   */
+  public Collection<QuizSession> getQuizSessions() {
+    return quizSessionStore.values();
+  }
+
+  public int getLiveSessions() {
+    return quizSessionStore.size();
+  }
+
+  /**
+   * Sets a new quiz for a quiz session.
+   *
+   * @param quizSession The quiz session.
+   * @param quizId      The ID of the new quiz.
+   * @return false if the quiz does not exist.
+   */
+  public boolean setNewQuiz(QuizSession quizSession, long quizId) {
+    return setNewQuiz(quizSession, quizId, ThreadLocalRandom.current().nextLong());
   }
 
   /**
-   * Sets the quiz for a quiz session.
+   * Sets a new quiz for a quiz session, with its options in the order given by a seed.
    *
-   * @param message The message containing the token and the quiz ID.
+   * @param quizSession The quiz session.
+   * @param quizId      The ID of the new quiz.
+   * @param shuffleSeed The seed for the order of the options.
+   * @return false if the quiz does not exist.
    */
-  public boolean setNewQuiz(QuizSession message) {
+  public boolean setNewQuiz(QuizSession quizSession, long quizId, long shuffleSeed) {
 
-    Optional<Quiz> quiz = quizRepo.findById((long) message.getQuizId());
+    Optional<QuizWithQuestionsDto> quiz = quizPackageCache.get(quizId);
 
     if (!quiz.isPresent()) {
       return false;
     }
 
-    message.setQuiz(DtoParser
-        .mapToQuizWithQuestionsDto(quiz.get(), quizRepo));
+    quizSession.setQuizId(quizId);
+    quizSession.setQuiz(quiz.get(), shuffleSeed);
     return true;
   }
 
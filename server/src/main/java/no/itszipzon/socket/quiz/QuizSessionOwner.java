@@ -0,0 +1,36 @@
+package no.itszipzon.socket.quiz;
+
+/**
+ * The node that owns a quiz session.
+ */
+public class QuizSessionOwner {
+
+  private final String nodeId;
+  private final String url;
+  private final boolean local;
+
+  /**
+   * Constructor for a session owner.
+   *
+   * @param nodeId The ID of the node.
+   * @param url    The address clients should connect to for the node.
+   * @param local  If the node is this node.
+   */
+  public QuizSessionOwner(String nodeId, String url, boolean local) {
+    this.nodeId = nodeId;
+    this.url = url;
+    this.local = local;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public boolean isLocal() {
+    return local;
+  }
+}
@@ -0,0 +1,75 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts quiz sessions that nobody has acted on for too long.
+ *
+ * <p>Sessions are normally removed when the leader leaves or the game ends. Crashed clients and
+ * abandoned lobbies never get there, so this sweeps them out. Lobbies and running games have
+ * their own time to live.
+ */
+@Component
+public class QuizSessionReaper {
+
+  @Autowired
+  private QuizSessionManager quizSessionManager;
+  @Autowired
+  private QuizBroadcaster quizBroadcaster;
+  @Autowired
+  private QuizMetrics quizMetrics;
+  @Value("${quiz.session.lobby-ttl-minutes:15}")
+  private long lobbyTtlMinutes;
+  @Value("${quiz.session.game-ttl-minutes:30}")
+  private long gameTtlMinutes;
+  @Value("${quiz.socket.legacy-frames:true}")
+  private boolean legacyFrames;
+
+  /**
+   * Queues an eviction on every session that looks expired. The check is repeated on the
+   * session's mailbox, since a player may act on it in the meantime.
+   */
+  @Scheduled(fixedDelayString = "${quiz.session.reaper-interval-ms:60000}")
+  public void reap() {
+    long now = System.currentTimeMillis();
+    for (QuizSession quizSession : quizSessionManager.getQuizSessions()) {
+      if (isExpired(quizSession, now)) {
+        quizSession.getMailbox().execute(() -> evict(quizSession));
+      }
+    }
+  }
+
+  private void evict(QuizSession quizSession) {
+    if (!isExpired(quizSession, System.currentTimeMillis())
+        || quizSessionManager.getQuizSession(quizSession.getToken()) != quizSession) {
+      return;
+    }
+    quizSessionManager.deleteQuizSession(quizSession.getToken());
+    quizMetrics.recordEviction();
+    Logger.info("Evicted idle quiz session " + quizSession.getToken() + ", "
+        + quizSessionManager.getLiveSessions() + " sessions left");
+
+    String message = "error: Quiz session expired";
+    if (legacyFrames) {
+      QuizSession expired = new QuizSession();
+      expired.setMessage(message);
+      expired.setStarted(quizSession.isStarted());
+      quizBroadcaster.send("/topic/quiz/session/" + quizSession.getToken(), expired);
+      quizBroadcaster.send("/topic/quiz/game/session/" + quizSession.getToken(),
+          Map.of("state", "closed", "message", message));
+    }
+    quizBroadcaster.publish(quizSession, QuizGameEvent.Type.CLOSED,
+        Map.of("message", message));
+  }
+
+  private boolean isExpired(QuizSession quizSession, long now) {
+    long ttl = quizSession.isStarted() ? gameTtlMinutes : lobbyTtlMinutes;
+    return now - quizSession.getLastActivity() > TimeUnit.MINUTES.toMillis(ttl);
+  }
+}
@@ -0,0 +1,155 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.List;
+
+/**
+ * The full state of a quiz session, as written when the journal is compacted.
+ */
+public class QuizSessionSnapshot {
+
+  private String token;
+  private long quizId;
+  private long shuffleSeed;
+  private int timer;
+  private String leaderUsername;
+  private boolean started;
+  private boolean largeRoom;
+  private String state;
+  private String message;
+  private int currentQuestionIndex;
+  private int scoredRounds;
+  private long journalSeq;
+  private List<QuizPlayer> players;
+
+  public QuizSessionSnapshot() {
+  }
+
+  /**
+   * Takes a snapshot of a quiz session. Must be called from the session's mailbox, and the
+   * snapshot must be rendered before the session changes again, since the players are shared.
+   *
+   * @param quizSession The quiz session.
+   * @return The snapshot.
+   */
+  public static QuizSessionSnapshot of(QuizSession quizSession) {
+    QuizSessionSnapshot snapshot = new QuizSessionSnapshot();
+    snapshot.token = quizSession.getToken();
+    snapshot.quizId = quizSession.getQuizId();
+    snapshot.shuffleSeed = quizSession.getShuffleSeed();
+    snapshot.timer = quizSession.getQuiz().getTimer();
+    snapshot.leaderUsername = quizSession.getLeaderUsername();
+    snapshot.started = quizSession.isStarted();
+    snapshot.largeRoom = quizSession.isLargeRoom();
+    snapshot.state = quizSession.getState();
+    snapshot.message = quizSession.getMessage();
+    snapshot.currentQuestionIndex = quizSession.getCurrentQuestionIndex();
+    snapshot.scoredRounds = quizSession.getScoreEngine().getScoredRounds();
+    snapshot.journalSeq = quizSession.getJournalSeq();
+    snapshot.players = quizSession.getPlayers();
+    return snapshot;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  public long getQuizId() {
+    return quizId;
+  }
+
+  public void setQuizId(long quizId) {
+    this.quizId = quizId;
+  }
+
+  public long getShuffleSeed() {
+    return shuffleSeed;
+  }
+
+  public void setShuffleSeed(long shuffleSeed) {
+    this.shuffleSeed = shuffleSeed;
+  }
+
+  public int getTimer() {
+    return timer;
+  }
+
+  public void setTimer(int timer) {
+    this.timer = timer;
+  }
+
+  public String getLeaderUsername() {
+    return leaderUsername;
+  }
+
+  public void setLeaderUsername(String leaderUsername) {
+    this.leaderUsername = leaderUsername;
+  }
+
+  public boolean isStarted() {
+    return started;
+  }
+
+  public void setStarted(boolean started) {
+    this.started = started;
+  }
+
+  public boolean isLargeRoom() {
+    return largeRoom;
+  }
+
+  public void setLargeRoom(boolean largeRoom) {
+    this.largeRoom = largeRoom;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public void setState(String state) {
+    this.state = state;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public int getCurrentQuestionIndex() {
+    return currentQuestionIndex;
+  }
+
+  public void setCurrentQuestionIndex(int currentQuestionIndex) {
+    this.currentQuestionIndex = currentQuestionIndex;
+  }
+
+  public int getScoredRounds() {
+    return scoredRounds;
+  }
+
+  public void setScoredRounds(int scoredRounds) {
+    this.scoredRounds = scoredRounds;
+  }
+
+  public long getJournalSeq() {
+    return journalSeq;
+  }
+
+  public void setJournalSeq(long journalSeq) {
+    this.journalSeq = journalSeq;
+  }
+
+  public List<QuizPlayer> getPlayers() {
+    return players;
+  }
+
+  public void setPlayers(List<QuizPlayer> players) {
+    this.players = players;
+  }
+}
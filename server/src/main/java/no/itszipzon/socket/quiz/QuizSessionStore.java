@@ -0,0 +1,55 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.Collection;
+
+/**
+ * Where live quiz sessions are kept.
+ *
+ * <p>A session always runs on the node that created it. The store keeps the sessions this node
+ * owns, and tells which node owns any other session, so a join that reaches the wrong node can
+ * be handed over.
+ */
+public interface QuizSessionStore {
+
+  /**
+   * Claims a token for a new session owned by this node.
+   *
+   * @param token       The token for the quiz session.
+   * @param quizSession The quiz session.
+   * @return false if the token is already in use.
+   */
+  boolean putIfAbsent(String token, QuizSession quizSession);
+
+  /**
+   * Gets a session owned by this node.
+   *
+   * @param token The token for the quiz session.
+   * @return The session, or null if this node does not own it.
+   */
+  QuizSession get(String token);
+
+  /**
+   * Removes a session owned by this node and releases its token.
+   *
+   * @param token The token for the quiz session.
+   * @return The removed session, or null if this node did not own it.
+   */
+  QuizSession remove(String token);
+
+  /**
+   * Gets a weakly consistent view of the sessions owned by this node.
+   *
+   * @return The quiz sessions.
+   */
+  Collection<QuizSession> values();
+
+  int size();
+
+  /**
+   * Finds the node that owns a session.
+   *
+   * @param token The token for the quiz session.
+   * @return The owner, or null if no live node owns the session.
+   */
+  QuizSessionOwner findOwner(String token);
+}
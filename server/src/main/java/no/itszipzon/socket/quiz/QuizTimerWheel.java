@@ -0,0 +1,141 @@
+package no.itszipzon.socket.quiz;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.Logger;
+
+/**
+ * A hashed timing wheel shared by all quiz sessions.
+ *
+ * <p>A single ticker thread advances the wheel. New timeouts are handed to the ticker through a
+ * lock-free queue and placed into their bucket on the next tick, so only the ticker ever touches
+ * the buckets. Expired tasks must be cheap; quiz transitions only enqueue a command on the
+ * session mailbox.
+ */
+public class QuizTimerWheel {
+
+  private final long tickNanos;
+  private final List<Timeout>[] wheel;
+  private final int mask;
+  private final Queue<Timeout> pending;
+  private final ScheduledExecutorService ticker;
+  private final long startTime;
+  private long tick;
+
+  /**
+   * Constructor for a timing wheel.
+   *
+   * @param tickDuration The duration of one tick.
+   * @param unit         The unit of the tick duration.
+   * @param wheelSize    The amount of buckets, rounded up to a power of two.
+   */
+  @SuppressWarnings("unchecked")
+  public QuizTimerWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+    int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.wheel = new List[size];
+    for (int i = 0; i < size; i++) {
+      wheel[i] = new ArrayList<>();
+    }
+    this.mask = size - 1;
+    this.pending = new ConcurrentLinkedQueue<>();
+    this.startTime = System.nanoTime();
+    this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "quiz-timer-wheel");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.ticker.scheduleAtFixedRate(this::advance, tickDuration, tickDuration, unit);
+  }
+
+  /**
+   * Schedules a task to run once after a delay.
+   *
+   * @param task  The task to run.
+   * @param delay The delay before the task runs.
+   * @param unit  The unit of the delay.
+   * @return A handle that can cancel the task.
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay));
+    Timeout timeout = new Timeout(task, deadline);
+    pending.add(timeout);
+    return timeout;
+  }
+
+  public void shutdown() {
+    ticker.shutdownNow();
+  }
+
+  private void advance() {
+    try {
+      transferPending();
+      Iterator<Timeout> bucket = wheel[(int) (tick & mask)].iterator();
+      while (bucket.hasNext()) {
+        Timeout timeout = bucket.next();
+        if (timeout.cancelled) {
+          bucket.remove();
+        } else if (timeout.remainingRounds > 0) {
+          timeout.remainingRounds--;
+        } else {
+          bucket.remove();
+          timeout.expire();
+        }
+      }
+      tick++;
+    } catch (Exception e) {
+      Logger.error("Quiz timer wheel tick failed: " + e.getMessage());
+    }
+  }
+
+  private void transferPending() {
+    Timeout timeout;
+    while ((timeout = pending.poll()) != null) {
+      if (timeout.cancelled) {
+        continue;
+      }
+      long calculated = timeout.deadline / tickNanos;
+      timeout.remainingRounds = Math.max(0, (calculated - tick) / wheel.length);
+      long ticks = Math.max(calculated, tick);
+      wheel[(int) (ticks & mask)].add(timeout);
+    }
+  }
+
+  /**
+   * A scheduled task in the wheel.
+   */
+  public static class Timeout {
+
+    private final Runnable task;
+    private final long deadline;
+    private long remainingRounds;
+    private volatile boolean cancelled;
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    public void cancel() {
+      cancelled = true;
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    private void expire() {
+      try {
+        task.run();
+      } catch (Exception e) {
+        Logger.error("Quiz timer task failed: " + e.getMessage());
+      }
+    }
+  }
+}
@@ -8,6 +8,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -16,13 +17,17 @@ import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.hibernate.annotations.ColumnDefault;
 
 
 /**
  * Quiz.
  */
 @Entity
-@Table(name = "quiz")
+@Table(name = "quiz", indexes = {
+    @Index(name = "idx_quiz_created", columnList = "createdAt, quizId"),
+    @Index(name = "idx_quiz_user_created", columnList = "userId, createdAt, quizId")
+})
 public class Quiz {
 
   @Id
@@ -48,6 +53,10 @@ public class Quiz {
   @Column(nullable = false, name = "timer")
   private Integer timer = 0;
 
+  @ColumnDefault("0")
+  @Column(nullable = false, name = "attemptCount")
+  private long attemptCount;
+
   @ManyToOne(cascade = CascadeType.MERGE)
   @JoinColumn(name = "userId", referencedColumnName = "userId")
   @JsonBackReference
@@ -89,6 +98,14 @@ public class Quiz {
     this.quizId = quizId;
   }
 
+  public long getAttemptCount() {
+    return attemptCount;
+  }
+
+  public void setAttemptCount(long attemptCount) {
+    this.attemptCount = attemptCount;
+  }
+
   public String getTitle() {
     return title;
   }
@@ -8,6 +8,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -22,7 +23,10 @@ import org.hibernate.annotations.OnDeleteAction;
  * QuizAttempt.
  */
 @Entity
-@Table(name = "quizAttempt")
+@Table(name = "quizAttempt", indexes = {
+    @Index(name = "idx_attempt_user_taken", columnList = "userId, takenAt, quizAttemptId"),
+    @Index(name = "idx_attempt_taken", columnList = "takenAt")
+})
 public class QuizAttempt {
 
   @Id
@@ -0,0 +1,115 @@
+package no.itszipzon.tables;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * The node that owns a live quiz session, and a compact copy of the session's state.
+ */
+@Entity
+@Table(name = "quizSessionLease")
+public class QuizSessionLease {
+
+  @Id
+  @Column(name = "token", length = 16)
+  private String token;
+
+  @Column(name = "nodeId", nullable = false)
+  private String nodeId;
+
+  @Column(name = "nodeUrl")
+  private String nodeUrl;
+
+  @Column(name = "leaseExpiresAt", nullable = false)
+  private LocalDateTime leaseExpiresAt;
+
+  @Column(name = "quizId")
+  private long quizId;
+
+  @Column(name = "leaderUsername")
+  private String leaderUsername;
+
+  @Column(name = "state")
+  private String state;
+
+  @Column(name = "started", nullable = false)
+  private boolean started;
+
+  @Column(name = "players", nullable = false)
+  private int players;
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public void setNodeId(String nodeId) {
+    this.nodeId = nodeId;
+  }
+
+  public String getNodeUrl() {
+    return nodeUrl;
+  }
+
+  public void setNodeUrl(String nodeUrl) {
+    this.nodeUrl = nodeUrl;
+  }
+
+  public LocalDateTime getLeaseExpiresAt() {
+    return leaseExpiresAt;
+  }
+
+  public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+    this.leaseExpiresAt = leaseExpiresAt;
+  }
+
+  public long getQuizId() {
+    return quizId;
+  }
+
+  public void setQuizId(long quizId) {
+    this.quizId = quizId;
+  }
+
+  public String getLeaderUsername() {
+    return leaderUsername;
+  }
+
+  public void setLeaderUsername(String leaderUsername) {
+    this.leaderUsername = leaderUsername;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public void setState(String state) {
+    this.state = state;
+  }
+
+  public boolean isStarted() {
+    return started;
+  }
+
+  public void setStarted(boolean started) {
+    this.started = started;
+  }
+
+  public int getPlayers() {
+    return players;
+  }
+
+  public void setPlayers(int players) {
+    this.players = players;
+  }
+}
@@ -0,0 +1,98 @@
+package no.itszipzon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class RankedTreeTest {
+
+  private final RankedTree<Integer> tree = new RankedTree<>(Comparator.naturalOrder());
+
+  @Test
+  void keepsElementsSortedWhateverTheInsertOrder() {
+    for (int value : new int[] {50, 10, 40, 20, 30}) {
+      assertTrue(tree.insert(value));
+    }
+
+    assertEquals(5, tree.size());
+    assertEquals(List.of(10, 20, 30, 40, 50), tree.first(10));
+    assertEquals(0, tree.indexOf(10));
+    assertEquals(3, tree.indexOf(40));
+  }
+
+  @Test
+  void rejectsDuplicates() {
+    assertTrue(tree.insert(7));
+    assertFalse(tree.insert(7));
+
+    assertEquals(1, tree.size());
+  }
+
+  @Test
+  void removesElementsAndShiftsRanks() {
+    for (int value = 1; value <= 5; value++) {
+      tree.insert(value);
+    }
+
+    assertTrue(tree.remove(3));
+    assertFalse(tree.remove(3));
+    assertFalse(tree.remove(99));
+    assertEquals(-1, tree.indexOf(3));
+    assertEquals(2, tree.indexOf(4));
+    assertEquals(List.of(1, 2, 4, 5), tree.first(10));
+  }
+
+  @Test
+  void readsRangesInsideAndAcrossTheEnd() {
+    for (int value = 0; value < 10; value++) {
+      tree.insert(value);
+    }
+
+    assertEquals(List.of(3, 4, 5), tree.range(3, 3));
+    assertEquals(List.of(8, 9), tree.range(8, 5));
+    assertEquals(List.of(), tree.range(10, 5));
+    assertEquals(List.of(), tree.range(3, 0));
+    // A count that would overflow an int when added to the start.
+    assertEquals(List.of(9), tree.range(9, Integer.MAX_VALUE));
+  }
+
+  @Test
+  void clearEmptiesTheTree() {
+    tree.insert(1);
+    tree.insert(2);
+    tree.clear();
+
+    assertEquals(0, tree.size());
+    assertEquals(-1, tree.indexOf(1));
+    assertEquals(List.of(), tree.first(5));
+  }
+
+  @Test
+  void matchesSortedSetUnderRandomChanges() {
+    TreeSet<Integer> expected = new TreeSet<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      int value = random.nextInt(500);
+      if (random.nextBoolean()) {
+        assertEquals(expected.add(value), tree.insert(value));
+      } else {
+        assertEquals(expected.remove(value), tree.remove(value));
+      }
+    }
+
+    List<Integer> sorted = new ArrayList<>(expected);
+    assertEquals(sorted.size(), tree.size());
+    assertEquals(sorted, tree.first(sorted.size()));
+    for (int index = 0; index < sorted.size(); index++) {
+      assertEquals(index, tree.indexOf(sorted.get(index)));
+    }
+    assertEquals(sorted.subList(100, 150), tree.range(100, 50));
+  }
+}
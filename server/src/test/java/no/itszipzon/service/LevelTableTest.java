@@ -0,0 +1,74 @@
+package no.itszipzon.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import no.itszipzon.tables.Level;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LevelTableTest {
+
+  private LevelTable levelTable;
+
+  @BeforeEach
+  void setUp() {
+    levelTable = new LevelTable();
+    // Loaded out of order on purpose; the table sorts by level.
+    levelTable.load(List.of(new Level(3, 300), new Level(1, 100), new Level(2, 200)));
+  }
+
+  @Test
+  void staysOnLevelJustBelowThreshold() {
+    assertArrayEquals(new int[] {0, 99}, levelTable.resolve(0, 0, 99));
+    assertArrayEquals(new int[] {1, 199}, levelTable.resolve(1, 150, 49));
+  }
+
+  @Test
+  void reachesLevelExactlyAtThreshold() {
+    assertArrayEquals(new int[] {1, 0}, levelTable.resolve(0, 0, 100));
+    assertArrayEquals(new int[] {2, 0}, levelTable.resolve(1, 150, 50));
+  }
+
+  @Test
+  void jumpsSeveralLevelsAtOnce() {
+    assertArrayEquals(new int[] {2, 100}, levelTable.resolve(0, 0, 400));
+  }
+
+  @Test
+  void capsAtHighestLevel() {
+    assertArrayEquals(new int[] {3, 0}, levelTable.resolve(0, 0, 600));
+    assertArrayEquals(new int[] {3, 0}, levelTable.resolve(2, 10, 10_000));
+    assertArrayEquals(new int[] {3, 0}, levelTable.resolve(3, 50, 5));
+  }
+
+  @Test
+  void neverDropsBelowCurrentLevel() {
+    assertArrayEquals(new int[] {2, 0}, levelTable.resolve(2, 0, 0));
+  }
+
+  @Test
+  void reportsXpToNextLevel() {
+    assertEquals(100, levelTable.getXpToNextLevel(0));
+    assertEquals(300, levelTable.getXpToNextLevel(2));
+    assertEquals(-1, levelTable.getXpToNextLevel(3));
+    assertEquals(-1, levelTable.getXpToNextLevel(-1));
+  }
+
+  @Test
+  void stopsAtFirstMissingLevel() {
+    levelTable.load(List.of(new Level(1, 100), new Level(2, 200), new Level(4, 400)));
+
+    assertEquals(2, levelTable.getMaxLevel());
+    assertArrayEquals(new int[] {2, 0}, levelTable.resolve(0, 0, 1_000));
+  }
+
+  @Test
+  void hasOnlyLevelZeroWhenTableIsEmpty() {
+    levelTable.load(List.of());
+
+    assertEquals(0, levelTable.getMaxLevel());
+    assertArrayEquals(new int[] {0, 0}, levelTable.resolve(0, 0, 500));
+  }
+}
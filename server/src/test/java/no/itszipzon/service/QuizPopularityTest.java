@@ -0,0 +1,54 @@
+package no.itszipzon.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuizPopularityTest {
+
+  private QuizPopularity quizPopularity;
+
+  @BeforeEach
+  void setUp() {
+    quizPopularity = new QuizPopularity();
+    quizPopularity.load(List.of(
+        new Object[] {1L, 5L},
+        new Object[] {2L, 9L},
+        new Object[] {3L, 1L},
+        new Object[] {4L, 9L},
+        new Object[] {5L, 0L}));
+  }
+
+  @Test
+  void ranksByAttemptsThenById() {
+    assertEquals(List.of(2L, 4L, 1L, 3L), quizPopularity.getPage(0, 10));
+  }
+
+  @Test
+  void splitsIntoPages() {
+    assertEquals(List.of(2L, 4L), quizPopularity.getPage(0, 2));
+    assertEquals(List.of(1L, 3L), quizPopularity.getPage(1, 2));
+    assertEquals(List.of(3L), quizPopularity.getPage(1, 3));
+  }
+
+  @Test
+  void returnsEmptyPagePastTheEnd() {
+    assertEquals(List.of(), quizPopularity.getPage(2, 2));
+    assertEquals(List.of(), quizPopularity.getPage(1, 4));
+  }
+
+  @Test
+  void returnsEmptyPageWhenOffsetOverflowsAnInt() {
+    assertEquals(List.of(), quizPopularity.getPage(Integer.MAX_VALUE, 5));
+    assertEquals(List.of(), quizPopularity.getPage(1 << 20, 1 << 12));
+  }
+
+  @Test
+  void returnsEmptyPageForInvalidArguments() {
+    assertEquals(List.of(), quizPopularity.getPage(-1, 5));
+    assertEquals(List.of(), quizPopularity.getPage(0, 0));
+    assertEquals(List.of(), quizPopularity.getPage(0, -5));
+  }
+}
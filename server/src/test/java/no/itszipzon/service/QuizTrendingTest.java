@@ -0,0 +1,127 @@
+package no.itszipzon.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuizTrendingTest {
+
+  private static final long HOUR = 500_000;
+  private static final double DELTA = 1e-9;
+
+  private QuizTrending quizTrending;
+
+  @BeforeEach
+  void setUp() {
+    quizTrending = new QuizTrending();
+    quizTrending.configure(6, 3);
+  }
+
+  @Test
+  void addsAttemptsOfTheSameHour() {
+    quizTrending.record(1, HOUR, 2);
+    quizTrending.record(1, HOUR, 3);
+
+    assertEquals(5, quizTrending.scores(HOUR).get(1L), DELTA);
+  }
+
+  @Test
+  void keepsTheCountInsideItsHalfOfTheSlot() {
+    quizTrending.record(1, HOUR, Integer.MAX_VALUE);
+    quizTrending.record(1, HOUR, Integer.MAX_VALUE);
+
+    // 2^32 - 2 still fits in the lower 32 bits, so the hour above it is untouched.
+    assertEquals(4_294_967_294.0, quizTrending.scores(HOUR).get(1L), DELTA);
+  }
+
+  @Test
+  void countsEveryAttemptFromConcurrentGames() throws InterruptedException {
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 10_000; j++) {
+          quizTrending.record(1, HOUR, 1);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(40_000, quizTrending.scores(HOUR).get(1L), DELTA);
+  }
+
+  @Test
+  void resetsASlotStillHoldingAnOlderHour() {
+    quizTrending.record(1, HOUR, 7);
+    // A day later the ring comes back to the same slot.
+    quizTrending.record(1, HOUR + 24, 2);
+
+    assertEquals(2, quizTrending.scores(HOUR + 24).get(1L), DELTA);
+  }
+
+  @Test
+  void ignoresAttemptsOlderThanTheirSlot() {
+    quizTrending.record(1, HOUR + 24, 2);
+    quizTrending.record(1, HOUR, 7);
+
+    assertEquals(2, quizTrending.scores(HOUR + 24).get(1L), DELTA);
+  }
+
+  @Test
+  void weighsBucketsDownByHalfEveryHalfLife() {
+    quizTrending.record(1, HOUR, 8);
+
+    assertEquals(8, quizTrending.scores(HOUR).get(1L), DELTA);
+    assertEquals(4, quizTrending.scores(HOUR + 6).get(1L), DELTA);
+    assertEquals(2, quizTrending.scores(HOUR + 12).get(1L), DELTA);
+    assertEquals(8 * Math.pow(0.5, 23 / 6.0), quizTrending.scores(HOUR + 23).get(1L), DELTA);
+    assertEquals(0, quizTrending.scores(HOUR + 24).get(1L), DELTA);
+  }
+
+  @Test
+  void sumsTheWeightedBuckets() {
+    quizTrending.record(1, HOUR, 4);
+    quizTrending.record(1, HOUR + 6, 1);
+
+    assertEquals(3, quizTrending.scores(HOUR + 6).get(1L), DELTA);
+  }
+
+  @Test
+  void dropsQuizzesWithoutAttemptsInTheLastDay() {
+    quizTrending.record(1, HOUR, 5);
+    quizTrending.record(2, HOUR + 10, 1);
+
+    assertEquals(List.of(2L), quizTrending.rank(HOUR + 24));
+    Map<Long, Double> scores = quizTrending.scores(HOUR + 24);
+    assertFalse(scores.containsKey(1L));
+    assertEquals(1, scores.size());
+  }
+
+  @Test
+  void ranksTheBestQuizzesFirstAndKeepsOnlyTheConfiguredNumber() {
+    quizTrending.record(1, HOUR, 5);
+    quizTrending.record(2, HOUR, 9);
+    quizTrending.record(3, HOUR, 1);
+    quizTrending.record(4, HOUR, 7);
+    quizTrending.record(5, HOUR, 3);
+
+    assertEquals(List.of(2L, 4L, 1L), quizTrending.rank(HOUR));
+  }
+
+  @Test
+  void ranksRecentAttemptsAboveOlderOnes() {
+    // Ten attempts 12 hours ago weigh 2.5; three now weigh 3.
+    quizTrending.record(1, HOUR, 10);
+    quizTrending.record(2, HOUR + 12, 3);
+
+    assertEquals(List.of(2L, 1L), quizTrending.rank(HOUR + 12));
+  }
+}
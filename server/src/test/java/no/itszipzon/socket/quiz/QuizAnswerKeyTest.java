@@ -0,0 +1,78 @@
+package no.itszipzon.socket.quiz;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import no.itszipzon.dto.QuizOptionDto;
+import no.itszipzon.dto.QuizQuestionDto;
+import no.itszipzon.dto.QuizWithQuestionsDto;
+import org.junit.jupiter.api.Test;
+
+class QuizAnswerKeyTest {
+
+  static QuizWithQuestionsDto quiz(QuizQuestionDto... questions) {
+    return new QuizWithQuestionsDto(1, "Quiz", "A quiz", "thumbnail", 30, null,
+        new ArrayList<>(List.of(questions)), "leader");
+  }
+
+  static QuizQuestionDto question(long id, QuizOptionDto... options) {
+    return new QuizQuestionDto(id, "Question " + id, new ArrayList<>(List.of(options)));
+  }
+
+  static QuizOptionDto option(long id, boolean correct) {
+    return new QuizOptionDto(id, "Option " + id, correct);
+  }
+
+  @Test
+  void acceptsEveryCorrectOptionInAnyOrder() {
+    QuizAnswerKey key = QuizAnswerKey.of(quiz(
+        question(1, option(30, true), option(10, false), option(20, true))));
+
+    assertTrue(key.isCorrect(0, 20L));
+    assertTrue(key.isCorrect(0, 30L));
+    assertFalse(key.isCorrect(0, 10L));
+    assertEquals(List.of(20L, 30L), key.getCorrectAnswers(0));
+  }
+
+  @Test
+  void rejectsUnansweredAndUnknownOptions() {
+    QuizAnswerKey key = QuizAnswerKey.of(quiz(question(1, option(10, true))));
+
+    assertFalse(key.isCorrect(0, null));
+    assertFalse(key.isCorrect(0, 99L));
+  }
+
+  @Test
+  void treatsQuestionsOutsideQuizAsUnanswerable() {
+    QuizAnswerKey key = QuizAnswerKey.of(quiz(question(1, option(10, true))));
+
+    assertFalse(key.isCorrect(-1, 10L));
+    assertFalse(key.isCorrect(1, 10L));
+    assertEquals(List.of(), key.getCorrectAnswers(-1));
+    assertEquals(List.of(), key.getCorrectAnswers(1));
+  }
+
+  @Test
+  void keepsQuestionsWithoutCorrectOption() {
+    QuizAnswerKey key = QuizAnswerKey.of(quiz(
+        question(1, option(10, false)),
+        question(2, option(20, true))));
+
+    assertEquals(2, key.getAmountOfQuestions());
+    assertFalse(key.isCorrect(0, 10L));
+    assertTrue(key.isCorrect(1, 20L));
+  }
+
+  @Test
+  void isNotChangedByShufflingTheQuiz() {
+    QuizWithQuestionsDto quiz = quiz(question(1, option(10, true), option(20, false)));
+    QuizAnswerKey key = QuizAnswerKey.of(quiz);
+
+    quiz.getQuizQuestions().get(0).getQuizOptions().clear();
+
+    assertTrue(key.isCorrect(0, 10L));
+  }
+}
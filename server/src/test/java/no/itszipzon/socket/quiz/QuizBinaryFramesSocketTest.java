@@ -0,0 +1,145 @@
+package no.itszipzon.socket.quiz;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import no.itszipzon.config.JwtUtil;
+import no.itszipzon.config.StompAuthInterceptor;
+import no.itszipzon.config.StompBinaryGuard;
+import no.itszipzon.config.StompSubscriptionTracker;
+import no.itszipzon.config.WebSocketConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+/**
+ * Sends a binary game event through the broker to a real STOMP session on the plain WebSocket
+ * endpoint, and checks that it arrives byte for byte.
+ */
+@SpringBootTest(
+    classes = QuizBinaryFramesSocketTest.SocketOnly.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        // Every placeholder application.properties reads from the environment is set here, so
+        // the test does not depend on the shell it runs in.
+        "server.ssl.enabled=false",
+        "server.ssl.certificate=",
+        "server.ssl.certificate-private-key=",
+        "spring.security.user.name=test",
+        "spring.security.user.password=test",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "jwt.secret=a-test-secret-that-is-long-enough-for-hs256",
+        "quiz.session.store=memory"
+    })
+class QuizBinaryFramesSocketTest {
+
+  private static final String TOKEN = "ABCDE";
+  // Characters above one byte would be mangled if the frame went out as text.
+  private static final String MESSAGE = "Sp\u00f8rsm\u00e5l \u2713";
+
+  @LocalServerPort
+  private int port;
+  @Autowired
+  private QuizBroadcaster quizBroadcaster;
+  @Autowired
+  private QuizBinaryFrames quizBinaryFrames;
+
+  private WebSocketStompClient stompClient;
+
+  @AfterEach
+  void tearDown() {
+    if (stompClient != null) {
+      stompClient.stop();
+    }
+  }
+
+  @Test
+  void binaryEventArrivesIntactOverPlainWebSocket() throws Exception {
+    stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+    StompSession session = stompClient
+        .connectAsync("ws://localhost:" + port + "/ws", new StompSessionHandlerAdapter() { })
+        .get(5, TimeUnit.SECONDS);
+    BlockingQueue<Received> frames = new LinkedBlockingQueue<>();
+    session.subscribe(quizBroadcaster.getBinaryEventDestination(TOKEN), new StompFrameHandler() {
+      @Override
+      public Type getPayloadType(StompHeaders headers) {
+        return byte[].class;
+      }
+
+      @Override
+      public void handleFrame(StompHeaders headers, Object payload) {
+        frames.add(new Received(headers, (byte[]) payload));
+      }
+    });
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!quizBroadcaster.hasSubscribers(quizBroadcaster.getBinaryEventDestination(TOKEN))) {
+      assertTrue(System.currentTimeMillis() < deadline, "Subscription was not registered");
+      Thread.sleep(10);
+    }
+
+    QuizGameEvent event = new QuizGameEvent(7, QuizGameEvent.Type.STATE,
+        Map.of("state", "quiz", "message", MESSAGE, "currentQuestionIndex", 2));
+    quizBroadcaster.send(quizBroadcaster.getEventDestination(TOKEN), event);
+
+    Received frame = frames.poll(5, TimeUnit.SECONDS);
+    assertNotNull(frame);
+    assertEquals("application/octet-stream", frame.headers.getContentType().toString());
+    assertEquals("cbor", frame.headers.getFirst(QuizBroadcaster.FORMAT_HEADER));
+    assertArrayEquals(quizBinaryFrames.render(event), frame.payload);
+
+    JsonNode decoded = new CBORMapper().readTree(frame.payload);
+    assertEquals(7, decoded.get(0).asLong());
+    assertEquals(QuizGameEvent.Type.STATE.getCode(), decoded.get(1).asInt());
+    JsonNode data = decoded.get(2);
+    assertEquals(QuizBinaryFrames.STATES.indexOf("quiz"),
+        data.get(String.valueOf(QuizBinaryFrames.KEYS.indexOf("state"))).asInt());
+    assertEquals(MESSAGE,
+        data.get(String.valueOf(QuizBinaryFrames.KEYS.indexOf("message"))).asText());
+    assertEquals(2,
+        data.get(String.valueOf(QuizBinaryFrames.KEYS.indexOf("currentQuestionIndex"))).asInt());
+  }
+
+  private record Received(StompHeaders headers, byte[] payload) {
+  }
+
+  /**
+   * Just the socket and broadcast beans, without the database or the HTTP security.
+   */
+  @Configuration
+  @EnableAutoConfiguration(exclude = {
+      DataSourceAutoConfiguration.class,
+      HibernateJpaAutoConfiguration.class,
+      SecurityAutoConfiguration.class,
+      ManagementWebSecurityAutoConfiguration.class
+  })
+  @Import({WebSocketConfig.class, StompAuthInterceptor.class, StompBinaryGuard.class,
+      StompSubscriptionTracker.class, JwtUtil.class, QuizBroadcaster.class,
+      QuizBinaryFrames.class, QuizMetrics.class, InMemoryQuizSessionStore.class})
+  static class SocketOnly {
+  }
+}
@@ -0,0 +1,171 @@
+package no.itszipzon.socket.quiz;
+
+import static no.itszipzon.socket.quiz.QuizAnswerKeyTest.option;
+import static no.itszipzon.socket.quiz.QuizAnswerKeyTest.question;
+import static no.itszipzon.socket.quiz.QuizAnswerKeyTest.quiz;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QuizJournalTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir
+  Path directory;
+
+  private QuizJournal open(QuizSessionStore store, int segmentBytes) throws IOException {
+    QuizJournal journal = new QuizJournal(objectMapper, store, directory.toString(),
+        segmentBytes);
+    journal.init();
+    return journal;
+  }
+
+  private QuizSession session(String token) {
+    QuizSession quizSession = new QuizSession("leader", 1);
+    quizSession.setToken(token);
+    quizSession.setMailbox(new QuizSessionMailbox(Runnable::run));
+    quizSession.setQuiz(quiz(question(1, option(10, true), option(11, false))));
+    quizSession.addPlayer(new QuizPlayer("leader", 1L));
+    return quizSession;
+  }
+
+  private byte[] record(QuizJournalEntry.Type type, long seq) throws IOException {
+    return objectMapper.writeValueAsBytes(new QuizJournalEntry(type, "ABCDE", seq, Map.of()));
+  }
+
+  private void writeSegment(int index, byte[]... records) throws IOException {
+    int length = 0;
+    for (byte[] record : records) {
+      length += record.length;
+    }
+    ByteBuffer data = ByteBuffer.allocate(length);
+    for (byte[] record : records) {
+      data.put(record);
+    }
+    Files.write(directory.resolve(String.format("journal-%06d.bin", index)), data.array());
+  }
+
+  private byte[] frame(byte[] record) {
+    return ByteBuffer.allocate(4 + record.length).putInt(record.length).put(record).array();
+  }
+
+  private List<Long> seqs(List<QuizJournalEntry> entries) {
+    List<Long> seqs = new ArrayList<>();
+    for (QuizJournalEntry entry : entries) {
+      seqs.add(entry.getSeq());
+    }
+    return seqs;
+  }
+
+  @Test
+  void readsBackEntriesAfterRestart() throws Exception {
+    QuizSession quizSession = session("ABCDE");
+    QuizJournal journal = open(new InMemoryQuizSessionStore(), 4096);
+    journal.append(quizSession, QuizJournalEntry.Type.JOINED, Map.of("username", "player",
+        "id", 2L));
+    journal.append(quizSession, QuizJournalEntry.Type.STARTED, Map.of());
+    journal.shutdown();
+
+    List<QuizJournalEntry> entries = open(new InMemoryQuizSessionStore(), 4096).readEntries();
+
+    assertEquals(2, entries.size());
+    assertEquals(QuizJournalEntry.Type.JOINED, entries.get(0).getType());
+    assertEquals("ABCDE", entries.get(0).getToken());
+    assertEquals("player", entries.get(0).getData().get("username"));
+    assertEquals(List.of(1L, 2L), seqs(entries));
+  }
+
+  @Test
+  void readsEntriesAcrossSegmentsInOrder() throws Exception {
+    QuizSession quizSession = session("ABCDE");
+    // Small enough that every entry rolls to a new segment.
+    QuizJournal journal = open(new InMemoryQuizSessionStore(), 128);
+    for (int i = 0; i < 5; i++) {
+      journal.append(quizSession, QuizJournalEntry.Type.STATE, Map.of("questionIndex", i));
+    }
+    journal.shutdown();
+
+    List<QuizJournalEntry> entries = open(new InMemoryQuizSessionStore(), 128).readEntries();
+
+    assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seqs(entries));
+  }
+
+  @Test
+  void stopsAtRecordCutOffByEndOfSegment() throws Exception {
+    byte[] torn = ByteBuffer.allocate(14).putInt(500).put(new byte[10]).array();
+    writeSegment(0, frame(record(QuizJournalEntry.Type.JOINED, 1)),
+        frame(record(QuizJournalEntry.Type.STARTED, 2)), torn);
+    writeSegment(1, frame(record(QuizJournalEntry.Type.STATE, 3)));
+
+    List<QuizJournalEntry> entries = open(new InMemoryQuizSessionStore(), 4096).readEntries();
+
+    assertEquals(List.of(1L, 2L, 3L), seqs(entries));
+  }
+
+  @Test
+  void stopsAtRecordWhoseContentWasNeverWritten() throws Exception {
+    // The length made it to disk but the content did not; the rest of the segment is skipped.
+    byte[] torn = ByteBuffer.allocate(4 + 40).putInt(40).array();
+    writeSegment(0, frame(record(QuizJournalEntry.Type.JOINED, 1)), torn,
+        frame(record(QuizJournalEntry.Type.STARTED, 2)));
+    writeSegment(1, frame(record(QuizJournalEntry.Type.STATE, 3)));
+
+    List<QuizJournalEntry> entries = open(new InMemoryQuizSessionStore(), 4096).readEntries();
+
+    assertEquals(List.of(1L, 3L), seqs(entries));
+  }
+
+  @Test
+  void replaysOnlyEntriesAfterSnapshot() throws Exception {
+    QuizSessionStore store = new InMemoryQuizSessionStore();
+    QuizSession quizSession = session("ABCDE");
+    store.putIfAbsent("ABCDE", quizSession);
+    QuizJournal journal = open(store, 4096);
+    journal.append(quizSession, QuizJournalEntry.Type.JOINED, Map.of("username", "player",
+        "id", 2L));
+    quizSession.addPlayer(new QuizPlayer("player", 2L));
+    journal.markReplayed();
+    journal.compact();
+    journal.append(quizSession, QuizJournalEntry.Type.STARTED, Map.of());
+    journal.shutdown();
+
+    QuizJournal reopened = open(new InMemoryQuizSessionStore(), 4096);
+    List<QuizSessionSnapshot> snapshots = reopened.readSnapshots();
+
+    assertEquals(1, snapshots.size());
+    assertEquals("ABCDE", snapshots.get(0).getToken());
+    assertEquals(1L, snapshots.get(0).getJournalSeq());
+    assertEquals(quizSession.getShuffleSeed(), snapshots.get(0).getShuffleSeed());
+    assertEquals(2, snapshots.get(0).getPlayers().size());
+    assertEquals(List.of(2L), seqs(reopened.readEntries()));
+  }
+
+  @Test
+  void sameShuffleSeedGivesSameOptionOrder() {
+    QuizSession original = new QuizSession("leader", 1);
+    original.setQuiz(quiz(question(1, option(10, true), option(11, false), option(12, false),
+        option(13, false), option(14, false))));
+    QuizSession restored = new QuizSession("leader", 1);
+    // Loaded in a different order than the original, as a reload from the database may be.
+    restored.setQuiz(quiz(question(1, option(14, false), option(12, false), option(10, true),
+        option(13, false), option(11, false))), original.getShuffleSeed());
+
+    List<Long> originalOrder = new ArrayList<>();
+    original.getQuiz().getQuizQuestions().get(0).getQuizOptions()
+        .forEach(option -> originalOrder.add(option.getId()));
+    List<Long> restoredOrder = new ArrayList<>();
+    restored.getQuiz().getQuizQuestions().get(0).getQuizOptions()
+        .forEach(option -> restoredOrder.add(option.getId()));
+    assertEquals(originalOrder, restoredOrder);
+  }
+}
@@ -0,0 +1,119 @@
+package no.itszipzon.socket.quiz;
+
+import static no.itszipzon.socket.quiz.QuizAnswerKeyTest.option;
+import static no.itszipzon.socket.quiz.QuizAnswerKeyTest.question;
+import static no.itszipzon.socket.quiz.QuizAnswerKeyTest.quiz;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuizScoreEngineTest {
+
+  private QuizScoreEngine engine;
+  private QuizPlayer alice;
+  private QuizPlayer bob;
+
+  @BeforeEach
+  void setUp() {
+    QuizAnswerKey key = QuizAnswerKey.of(quiz(
+        question(1, option(10, true), option(11, false)),
+        question(2, option(20, false), option(21, true)),
+        question(3, option(30, true), option(31, false))));
+    engine = new QuizScoreEngine(key, new QuizRanking());
+    alice = new QuizPlayer("alice", 1L);
+    bob = new QuizPlayer("bob", 2L);
+  }
+
+  @Test
+  void scoresCorrectAnswersOnly() {
+    answer(alice, 10L, 800, 1500);
+    answer(bob, 11L, 900, 1000);
+
+    QuizRoundScore round = engine.closeRound(0, List.of(alice, bob));
+
+    assertEquals(800, alice.getScore());
+    assertEquals(1, alice.getAmountOfCorrectAnswers());
+    assertEquals(1500, alice.getAnswerTime());
+    assertEquals(0, bob.getScore());
+    assertEquals(0, bob.getAmountOfCorrectAnswers());
+    assertTrue(round.getDeltas().get(0).isCorrect());
+    assertEquals(800, round.getDeltas().get(0).getPoints());
+    assertEquals(1, round.getDeltas().get(0).getRank());
+    assertFalse(round.getDeltas().get(1).isCorrect());
+    assertEquals(0, round.getDeltas().get(1).getPoints());
+  }
+
+  @Test
+  void countsClosedRoundOnlyOnce() {
+    answer(alice, 10L, 800, 1500);
+
+    QuizRoundScore first = engine.closeRound(0, List.of(alice));
+    QuizRoundScore again = engine.closeRound(0, List.of(alice));
+
+    assertEquals(800, alice.getScore());
+    assertEquals(1, alice.getAmountOfCorrectAnswers());
+    assertEquals(1, engine.getScoredRounds());
+    assertEquals(first, again);
+  }
+
+  @Test
+  void foldsSkippedRoundsWhenLaterRoundCloses() {
+    answer(alice, 10L, 500, 1000);
+    answer(alice, 21L, 600, 1000);
+    answer(alice, 30L, 700, 1000);
+
+    QuizRoundScore round = engine.closeRound(2, List.of(alice));
+
+    assertEquals(1800, alice.getScore());
+    assertEquals(3, alice.getAmountOfCorrectAnswers());
+    assertEquals(2, round.getQuestionIndex());
+    assertEquals(700, round.getDeltas().get(0).getPoints());
+  }
+
+  @Test
+  void givesNothingForMissingOrEmptyAnswers() {
+    alice.getAnswers().add(new QuizAnswerSocket(null, null));
+
+    QuizRoundScore round = engine.closeRound(0, List.of(alice, bob));
+
+    assertEquals(0, alice.getScore());
+    assertEquals(0, bob.getScore());
+    assertFalse(round.getDeltas().get(0).isCorrect());
+    assertFalse(round.getDeltas().get(1).isCorrect());
+  }
+
+  @Test
+  void skipsRoundsScoredBeforeRestore() {
+    answer(alice, 10L, 800, 1000);
+    answer(alice, 21L, 600, 1000);
+    alice.setScore(800);
+    engine.restore(1);
+
+    engine.closeRound(1, List.of(alice));
+
+    assertEquals(1400, alice.getScore());
+    assertEquals(2, engine.getScoredRounds());
+  }
+
+  @Test
+  void ranksPlayersByScoreThenAnswerTime() {
+    answer(alice, 10L, 800, 2000);
+    answer(bob, 10L, 800, 1000);
+
+    QuizRoundScore round = engine.closeRound(0, List.of(alice, bob));
+
+    assertEquals(2, round.getDeltas().get(0).getRank());
+    assertEquals(1, round.getDeltas().get(1).getRank());
+  }
+
+  private static void answer(QuizPlayer player, Long optionId, int score, long time) {
+    QuizAnswerSocket answer = new QuizAnswerSocket("Option " + optionId, optionId);
+    answer.setScore(score);
+    answer.setTime(time);
+    player.getAnswers().add(answer);
+  }
+}
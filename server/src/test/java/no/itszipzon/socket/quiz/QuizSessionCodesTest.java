@@ -0,0 +1,78 @@
+package no.itszipzon.socket.quiz;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class QuizSessionCodesTest {
+
+  // 36 characters, five of them.
+  private static final int SPACE = 60_466_176;
+
+  @Test
+  void allocatesDistinctCodesInsideTheCodeSpace() {
+    QuizSessionCodes codes = new QuizSessionCodes();
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < 200_000; i++) {
+      String code = codes.allocate();
+      assertTrue(code.matches("[A-Z0-9]{5}"), code);
+      assertTrue(seen.add(code), "Allocated twice: " + code);
+    }
+  }
+
+  @Test
+  void walksTheLastCodesOfTheSpaceWithoutRepeats() {
+    QuizSessionCodes codes = new QuizSessionCodes(SPACE - 1000);
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(seen.add(codes.allocate()));
+    }
+
+    assertNull(codes.allocate());
+  }
+
+  @Test
+  void keepsReleasedCodesAsideWhileFreshOnesRemain() {
+    QuizSessionCodes codes = new QuizSessionCodes();
+    String first = codes.allocate();
+    codes.release(first);
+
+    for (int i = 0; i < 10_000; i++) {
+      assertNotEquals(first, codes.allocate());
+    }
+  }
+
+  @Test
+  void reusesReleasedCodesOnceFreshOnesRunOut() {
+    QuizSessionCodes codes = new QuizSessionCodes(SPACE - 2);
+    String first = codes.allocate();
+    String second = codes.allocate();
+    assertNull(codes.allocate());
+
+    codes.release(second);
+    codes.release(second);
+    codes.release(first);
+
+    Set<String> reused = new HashSet<>();
+    reused.add(codes.allocate());
+    reused.add(codes.allocate());
+    assertEquals(Set.of(first, second), reused);
+    assertNull(codes.allocate());
+  }
+
+  @Test
+  void ignoresCodesItCouldNotHaveMade() {
+    QuizSessionCodes codes = new QuizSessionCodes(SPACE);
+    codes.release(null);
+    codes.release("ABC");
+    codes.release("abcde");
+    codes.release("AB-DE");
+
+    assertNull(codes.allocate());
+  }
+}
@@ -0,0 +1,86 @@
+package no.itszipzon.socket.quiz;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuizTimerWheelTest {
+
+  private QuizTimerWheel wheel;
+
+  @BeforeEach
+  void setUp() {
+    wheel = new QuizTimerWheel(5, TimeUnit.MILLISECONDS, 4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    wheel.shutdown();
+  }
+
+  @Test
+  void runsTaskAfterDelay() throws InterruptedException {
+    CountDownLatch fired = new CountDownLatch(1);
+    long start = System.nanoTime();
+    wheel.schedule(fired::countDown, 30, TimeUnit.MILLISECONDS);
+
+    assertTrue(fired.await(1, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+  }
+
+  @Test
+  void waitsFullRoundsWhenDelayWrapsAroundWheel() throws InterruptedException {
+    // Four buckets of 5 ms: a 100 ms delay goes around the wheel five times.
+    CountDownLatch fired = new CountDownLatch(1);
+    long start = System.nanoTime();
+    wheel.schedule(fired::countDown, 100, TimeUnit.MILLISECONDS);
+
+    assertTrue(fired.await(1, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  void doesNotRunCancelledTask() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    QuizTimerWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 20,
+        TimeUnit.MILLISECONDS);
+    timeout.cancel();
+    CountDownLatch later = new CountDownLatch(1);
+    wheel.schedule(later::countDown, 60, TimeUnit.MILLISECONDS);
+
+    assertTrue(later.await(1, TimeUnit.SECONDS));
+    assertTrue(timeout.isCancelled());
+    assertEquals(0, runs.get());
+  }
+
+  @Test
+  void runsTasksSharingBucketIndependently() throws InterruptedException {
+    CountDownLatch fired = new CountDownLatch(3);
+    AtomicInteger failures = new AtomicInteger();
+    wheel.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+    wheel.schedule(() -> {
+      failures.incrementAndGet();
+      throw new IllegalStateException("task failure");
+    }, 10, TimeUnit.MILLISECONDS);
+    wheel.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+    // 30 ms lands in the same bucket one round later.
+    wheel.schedule(fired::countDown, 30, TimeUnit.MILLISECONDS);
+
+    assertTrue(fired.await(1, TimeUnit.SECONDS));
+    assertEquals(1, failures.get());
+  }
+
+  @Test
+  void runsTaskWithNegativeDelayOnNextTick() throws InterruptedException {
+    CountDownLatch fired = new CountDownLatch(1);
+    wheel.schedule(fired::countDown, -50, TimeUnit.MILLISECONDS);
+
+    assertTrue(fired.await(1, TimeUnit.SECONDS));
+  }
+}